@@ -4,6 +4,9 @@ import com.alfarays.model.ProductResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.Map;
+
 @Component
 public class ProductFallback implements ProductServiceClient {
 
@@ -12,4 +15,9 @@ public class ProductFallback implements ProductServiceClient {
        throw new RuntimeException("Product fetch error!");
     }
 
+    @Override
+    public ResponseEntity<Map<Long, ProductResponse>> getBatch(Collection<Long> ids) {
+        throw new RuntimeException("Product fetch error!");
+    }
+
 }
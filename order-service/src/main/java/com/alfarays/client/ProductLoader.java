@@ -0,0 +1,146 @@
+package com.alfarays.client;
+
+import com.alfarays.model.ProductResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent single-product lookups into one call to the batch endpoint.
+ *
+ * Ids held in the local ProductSnapshot are answered from memory; only misses are fetched, and
+ * what is fetched is added to the snapshot.
+ *
+ * The first caller to arrive opens a batch and leads it: it waits up to the window for other
+ * callers to add their ids, then sends one request for everything collected and completes every
+ * caller's future from the response. A batch that fills up is sent straight away. Callers asking
+ * for the same id share a future, and a failed call, whatever it throws, fails every caller in the
+ * batch. Callers waiting on another caller's batch give up after wait-timeout.
+ */
+@Slf4j
+@Component
+public class ProductLoader {
+
+    private final ProductServiceClient client;
+    private final ProductSnapshot snapshot;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long waitNanos;
+
+    private final Object lock = new Object();
+    private Batch open;
+
+    public ProductLoader(ProductServiceClient client,
+                         ProductSnapshot snapshot,
+                         @Value("${product-client.coalescing.window:2ms}") Duration window,
+                         @Value("${product-client.coalescing.max-batch-size:100}") int maxBatchSize,
+                         @Value("${product-client.coalescing.wait-timeout:5s}") Duration waitTimeout) {
+        this.client = client;
+        this.snapshot = snapshot;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.waitNanos = waitTimeout.toNanos();
+    }
+
+    public ProductResponse get(Long id) {
+        ProductResponse product = getAll(List.of(id)).get(id);
+        if (product == null) {
+            throw new IllegalArgumentException("Product not found with id: " + id);
+        }
+        return product;
+    }
+
+    /**
+     * Products for the given ids, in request order; unknown ids are absent from the map
+     */
+    public Map<Long, ProductResponse> getAll(Collection<Long> ids) {
+        Map<Long, CompletableFuture<ProductResponse>> products = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            ProductResponse cached = snapshot.get(id);
+            // placeholder keeps the request order; replaced below
+            products.put(id, cached == null ? null : CompletableFuture.completedFuture(cached));
+            if (cached == null) missing.add(id);
+        }
+
+        List<Batch> led = new ArrayList<>();
+        synchronized (lock) {
+            for (Long id : missing) {
+                if (open == null) {
+                    open = new Batch();
+                    led.add(open);
+                }
+                Batch batch = open;
+                products.put(id, batch.products.computeIfAbsent(id, key -> new CompletableFuture<>()));
+                if (batch.products.size() >= maxBatchSize) {
+                    open = null;
+                    batch.full.countDown();
+                }
+            }
+        }
+
+        // batches filled here are sent at once, only the last one waits out the window
+        led.forEach(this::lead);
+
+        Map<Long, ProductResponse> found = new LinkedHashMap<>();
+        long deadline = System.nanoTime() + waitNanos;
+        try {
+            for (Map.Entry<Long, CompletableFuture<ProductResponse>> product : products.entrySet()) {
+                ProductResponse response = product.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (response != null) found.put(product.getKey(), response);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new IllegalStateException("Product lookup failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for products " + missing);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for products " + missing, e);
+        }
+        return found;
+    }
+
+    private void lead(Batch batch) {
+        try {
+            batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Long> ids;
+        synchronized (lock) {
+            if (open == batch) open = null;
+            ids = new ArrayList<>(batch.products.keySet());
+        }
+
+        try {
+            Map<Long, ProductResponse> found = client.getBatch(ids).getBody();
+            log.debug("Fetched {} products in one batch call", ids.size());
+            if (found != null) found.values().forEach(product -> snapshot.put(product));
+            batch.products.forEach((id, future) -> future.complete(found == null ? null : found.get(id)));
+        } catch (Throwable e) {
+            // anything that escapes here would leave the other callers waiting on their futures
+            batch.products.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static final class Batch {
+        // guarded by lock until the batch is closed, read-only afterwards
+        private final Map<Long, CompletableFuture<ProductResponse>> products = new LinkedHashMap<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+    }
+}
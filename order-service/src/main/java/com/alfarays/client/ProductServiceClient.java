@@ -5,6 +5,11 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.Collection;
+import java.util.Map;
 
 @FeignClient(value = "PRODUCT-SERVICE", fallback = ProductFallback.class)
 public interface ProductServiceClient {
@@ -12,4 +17,10 @@ public interface ProductServiceClient {
     @GetMapping("/api/v1.0.0/products/{id}")
     ResponseEntity<ProductResponse> get(@PathVariable Long id);
 
+    /**
+     * One round trip for many ids; unknown ids are absent from the returned map
+     */
+    @PostMapping("/api/v1.0.0/products/batch")
+    ResponseEntity<Map<Long, ProductResponse>> getBatch(@RequestBody Collection<Long> ids);
+
 }
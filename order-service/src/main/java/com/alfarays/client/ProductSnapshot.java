@@ -0,0 +1,133 @@
+package com.alfarays.client;
+
+import com.alfarays.enums.ChangeType;
+import com.alfarays.model.CatalogChangeEvent;
+import com.alfarays.model.CategoryResponse;
+import com.alfarays.model.ProductResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded local copy of the products order-service has looked up, kept current by catalog-changed.
+ *
+ * Lookups from product-service and change events both write here, ordered by the product and
+ * category versions product-service stamps on every representation: an older version never
+ * replaces a newer one, whichever arrives last. Wall-clock time is not used, since a lookup can be
+ * answered from a product-service replica that has not seen the change yet. Entries expire after
+ * max-staleness whether or not an event arrived, which bounds how stale a missed event can leave
+ * them. Hit rate is exported as the cache.gets metric of the product-snapshot cache.
+ */
+@Slf4j
+@Component
+public class ProductSnapshot {
+
+    public static final String CACHE_NAME = "product-snapshot";
+
+    private final Cache<Long, ProductResponse> products;
+
+    public ProductSnapshot(@Value("${product-client.snapshot.max-size:10000}") long maxSize,
+                           @Value("${product-client.snapshot.max-staleness:10m}") Duration maxStaleness,
+                           MeterRegistry meterRegistry) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxStaleness)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, CACHE_NAME);
+    }
+
+    /**
+     * Product as last seen, or null when it has to be fetched
+     */
+    public ProductResponse get(Long id) {
+        return products.getIfPresent(id);
+    }
+
+    /**
+     * Stores the product unless the snapshot already holds a newer version of it
+     */
+    public void put(ProductResponse product) {
+        products.asMap().compute(product.getId(), (id, current) ->
+                current != null && isOlder(product, current) ? current : product);
+    }
+
+    public void apply(CatalogChangeEvent event) {
+        switch (event.entity()) {
+            case PRODUCT -> {
+                if (event.type() == ChangeType.UPSERTED && event.product() != null) {
+                    put(event.product());
+                } else {
+                    products.invalidate(event.id());
+                }
+            }
+            case CATEGORY -> applyCategory(event);
+        }
+    }
+
+    /**
+     * A renamed category is copied into the products that carry it; a deleted one drops them
+     */
+    private void applyCategory(CatalogChangeEvent event) {
+        List<Long> affected = new ArrayList<>();
+        for (Map.Entry<Long, ProductResponse> entry : products.asMap().entrySet()) {
+            CategoryResponse category = entry.getValue().getCategory();
+            if (category != null && event.id().equals(category.getId())) affected.add(entry.getKey());
+        }
+        if (affected.isEmpty()) return;
+
+        if (event.type() == ChangeType.DELETED || event.category() == null) {
+            products.invalidateAll(affected);
+            return;
+        }
+        for (Long id : affected) {
+            products.asMap().computeIfPresent(id, (key, current) -> {
+                CategoryResponse category = current.getCategory();
+                // the product may have moved to another category since the scan
+                if (category == null || !event.id().equals(category.getId())) return current;
+                if (version(event.category().getVersion()) < version(category.getVersion())) return current;
+                return withCategory(current, event.category());
+            });
+        }
+        log.debug("Updated category {} in {} product snapshots", event.id(), affected.size());
+    }
+
+    /**
+     * Product version first; at the same product version, the embedded category's version
+     */
+    private static boolean isOlder(ProductResponse candidate, ProductResponse current) {
+        int byProduct = Long.compare(version(candidate.getVersion()), version(current.getVersion()));
+        if (byProduct != 0) return byProduct < 0;
+        return version(categoryVersion(candidate)) < version(categoryVersion(current));
+    }
+
+    private static Long categoryVersion(ProductResponse product) {
+        return product.getCategory() != null ? product.getCategory().getVersion() : null;
+    }
+
+    // representations from before versions were sent order below everything else
+    private static long version(Long version) {
+        return version != null ? version : -1;
+    }
+
+    // entries are shared with callers, so they are replaced rather than modified
+    private static ProductResponse withCategory(ProductResponse product, CategoryResponse category) {
+        return ProductResponse.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .version(product.getVersion())
+                .specification(product.getSpecification())
+                .category(category)
+                .images(product.getImages())
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.alfarays.entity;
+
+import com.alfarays.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(
+        name = "orders",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_orders_idempotency_key", columnNames = "idempotencyKey"),
+                @UniqueConstraint(name = "uk_orders_reference_number", columnNames = "referenceNumber")
+        }
+)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class Order {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "order_sequence", allocationSize = 50)
+    private Long id;
+
+    // Client-supplied key of the create request; the unique index makes a replayed create find the
+    // first order instead of booking a second one
+    @Column(nullable = false, length = 64)
+    private String idempotencyKey;
+
+    // SHA-256 of the requested lines, so a key reused for a different order is rejected
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false, length = 36)
+    private String referenceNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OrderStatus status;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Version
+    private Long version;
+
+    @OneToMany(
+            mappedBy = "order",
+            cascade = CascadeType.ALL,
+            orphanRemoval = true,
+            fetch = FetchType.LAZY
+    )
+    @OrderBy("lineNumber")
+    @BatchSize(size = 100)
+    private List<OrderLine> lines = new ArrayList<>();
+
+    public void addLine(OrderLine line) {
+        line.setOrder(this);
+        line.setLineNumber(lines.size() + 1);
+        lines.add(line);
+    }
+}
@@ -0,0 +1,42 @@
+package com.alfarays.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(
+        name = "order_lines",
+        indexes = @Index(name = "idx_order_lines_order_id", columnList = "order_id")
+)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderLine {
+
+    // Same block size as hibernate.jdbc.batch_size: all lines of an order go out as one JDBC batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_line_seq")
+    @SequenceGenerator(name = "order_line_seq", sequenceName = "order_line_sequence", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    @Column(nullable = false)
+    private int lineNumber;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    // Name at the time of ordering; the catalog may rename the product later
+    @Column(nullable = false)
+    private String productName;
+
+    @Column(nullable = false)
+    private int quantity;
+}
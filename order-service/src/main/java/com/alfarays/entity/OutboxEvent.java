@@ -0,0 +1,42 @@
+package com.alfarays.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message waiting to be published, written in the transaction that produced it and deleted by
+ * OutboxRelay once the broker has confirmed it
+ */
+@Entity
+@Table(name = "order_outbox")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEvent {
+
+    // Auto-increment rather than a pooled sequence: ids follow insert order across replicas, and the
+    // relay publishes in id order, so events of one order leave in the order they were written
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    // Output binding the payload is sent to
+    @Column(nullable = false, length = 64)
+    private String destination;
+
+    @Column(nullable = false, columnDefinition = "json")
+    private String payload;
+
+    // Database clock, so the relay's lag metric does not depend on replica clocks
+    @Column(insertable = false, updatable = false, columnDefinition = "datetime(6) not null default current_timestamp(6)")
+    private LocalDateTime createdAt;
+}
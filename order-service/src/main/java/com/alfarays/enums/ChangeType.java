@@ -0,0 +1,8 @@
+package com.alfarays.enums;
+
+public enum ChangeType {
+
+    UPSERTED,
+    DELETED
+
+}
@@ -1,11 +1,16 @@
 package com.alfarays.functions;
 
+import com.alfarays.client.ProductSnapshot;
+import com.alfarays.model.CatalogChangeEvent;
 import com.alfarays.service.OrderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 
 @Configuration
@@ -13,12 +18,33 @@ public class OrderFunctions {
 
     private static final Logger log = LoggerFactory.getLogger(OrderFunctions.class);
 
+    /**
+     * Receives communication-sent in batches (batch-mode on the binding) and confirms the whole batch
+     * with one UPDATE. Duplicates within a batch collapse here; redeliveries across batches are no-ops
+     * because only pending orders are updated. A failed update rejects the batch into the binding's DLQ,
+     * from where it returns to the queue after dlqTtl.
+     */
     @Bean
-    public Consumer<String> updateCommunication(OrderService orderService) {
-        return reference -> {
-            log.info("Updating Communication status for the order: " + reference);
-            //TODO: perform business logic
-            //orderService.updateOrderStatus(reference);
+    public Consumer<List<String>> updateCommunication(OrderService orderService) {
+        return references -> {
+            Set<String> distinct = new LinkedHashSet<>();
+            for (String reference : references) {
+                if (reference != null && !reference.isBlank()) distinct.add(reference.strip());
+            }
+            int confirmed = orderService.confirm(distinct);
+            log.info("Communication sent for {} messages ({} orders), {} orders confirmed",
+                    references.size(), distinct.size(), confirmed);
+        };
+    }
+
+    /**
+     * Keeps the local product snapshot in step with product-service's catalog-changed topic
+     */
+    @Bean
+    public Consumer<CatalogChangeEvent> refreshProducts(ProductSnapshot snapshot) {
+        return event -> {
+            log.debug("Applying catalog change for {} id: {} ({})", event.entity(), event.id(), event.type());
+            snapshot.apply(event);
         };
     }
 }
@@ -0,0 +1,37 @@
+package com.alfarays.messaging;
+
+import com.alfarays.entity.OutboxEvent;
+import com.alfarays.repository.OutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records outgoing messages next to the state change they describe. The row commits or rolls back
+ * with the caller's transaction; OutboxRelay does the publishing.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+    public static final String ORDER_CONFIRMATION = "sendCommunication-out-0";
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Long orderId, String destination, Object payload) {
+        try {
+            OutboxEvent event = new OutboxEvent();
+            event.setAggregateId(orderId);
+            event.setDestination(destination);
+            event.setPayload(objectMapper.writeValueAsString(payload));
+            outboxRepository.save(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox payload is not serializable", e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.alfarays.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes outbox rows to the broker, oldest first.
+ *
+ * Each batch is read with SELECT ... FOR UPDATE NOWAIT, so while one replica is draining, the others
+ * skip their turn instead of publishing the same rows or overtaking it; that keeps every order's
+ * events in insert order. The batch is sent with publisher confirms and only the prefix the broker
+ * acknowledged is deleted. Anything after the first nack or timeout is sent again on the next run,
+ * so delivery is at least once and consumers dedupe by order reference.
+ *
+ * Read committed, so the locking read takes no gap locks and never holds up order inserts.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    public static final String ORDER_ID_HEADER = "orderId";
+
+    private static final String SELECT_BATCH = """
+            select id, aggregate_id, destination, payload
+            from order_outbox
+            order by id
+            limit ?
+            for update nowait""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StreamBridge streamBridge;
+    private final int batchSize;
+    private final Duration confirmTimeout;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter published;
+    private final Counter failed;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       StreamBridge streamBridge,
+                       MeterRegistry meterRegistry,
+                       @Value("${order.outbox.batch-size:100}") int batchSize,
+                       @Value("${order.outbox.confirm-timeout:5s}") Duration confirmTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.streamBridge = streamBridge;
+        this.batchSize = batchSize;
+        this.confirmTimeout = confirmTimeout;
+
+        Gauge.builder("order.outbox.backlog", backlog, AtomicLong::get)
+                .description("Outbox rows not yet confirmed by the broker")
+                .register(meterRegistry);
+        TimeGauge.builder("order.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox row")
+                .register(meterRegistry);
+        this.published = Counter.builder("order.outbox.published").register(meterRegistry);
+        this.failed = Counter.builder("order.outbox.publish.failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval:500ms}")
+    public void relay() {
+        try {
+            int sent;
+            do {
+                sent = transactionTemplate.execute(status -> publishBatch());
+            } while (sent == batchSize);
+        } catch (DataAccessException e) {
+            // NOWAIT: another replica holds the head of the outbox
+            log.debug("Outbox relay skipped this run: {}", e.getMessage());
+        } finally {
+            refreshMetrics();
+        }
+    }
+
+    private int publishBatch() {
+        List<Row> rows = jdbcTemplate.query(SELECT_BATCH, (rs, rowNum) -> new Row(
+                rs.getLong("id"),
+                rs.getLong("aggregate_id"),
+                rs.getString("destination"),
+                rs.getString("payload")
+        ), batchSize);
+        if (rows.isEmpty()) return 0;
+
+        List<CorrelationData> confirms = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            CorrelationData correlation = new CorrelationData(String.valueOf(row.id()));
+            streamBridge.send(row.destination(), MessageBuilder.withPayload(row.payload().getBytes(StandardCharsets.UTF_8))
+                    .setHeader(MessageHeaders.CONTENT_TYPE, "application/json")
+                    .setHeader(ORDER_ID_HEADER, row.aggregateId())
+                    .setHeader(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION, correlation)
+                    .build());
+            confirms.add(correlation);
+        }
+
+        int acknowledged = acknowledgedPrefix(confirms);
+        if (acknowledged > 0) {
+            List<Object[]> ids = rows.subList(0, acknowledged).stream()
+                    .map(row -> new Object[]{row.id()})
+                    .toList();
+            jdbcTemplate.batchUpdate("delete from order_outbox where id = ?", ids);
+            published.increment(acknowledged);
+        }
+        if (acknowledged < rows.size()) {
+            failed.increment(rows.size() - acknowledged);
+            log.warn("Broker confirmed {} of {} outbox messages; the rest will be retried", acknowledged, rows.size());
+        }
+        // a partial batch ends this run, so the unconfirmed rows wait for the next poll
+        return acknowledged == rows.size() ? rows.size() : 0;
+    }
+
+    /**
+     * Number of leading messages the broker acked, waiting at most confirmTimeout for the whole batch
+     */
+    private int acknowledgedPrefix(List<CorrelationData> confirms) {
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        int acknowledged = 0;
+        for (CorrelationData correlation : confirms) {
+            try {
+                CorrelationData.Confirm confirm = correlation.getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!confirm.isAck()) {
+                    log.warn("Broker nacked outbox message {}: {}", correlation.getId(), confirm.getReason());
+                    break;
+                }
+                acknowledged++;
+            } catch (TimeoutException | ExecutionException e) {
+                log.warn("No confirm for outbox message {}", correlation.getId());
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return acknowledged;
+    }
+
+    private void refreshMetrics() {
+        try {
+            jdbcTemplate.query("""
+                    select count(*), coalesce(timestampdiff(microsecond, min(created_at), now(6)) div 1000, 0)
+                    from order_outbox""", rs -> {
+                backlog.set(rs.getLong(1));
+                lagMillis.set(rs.getLong(2));
+            });
+        } catch (DataAccessException e) {
+            log.debug("Could not read outbox backlog: {}", e.getMessage());
+        }
+    }
+
+    private record Row(long id, long aggregateId, String destination, String payload) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.alfarays.model;
+
+import com.alfarays.enums.CatalogEntity;
+import com.alfarays.enums.ChangeType;
+
+import java.time.Instant;
+
+/**
+ * Message on product-service's catalog-changed topic. Upserts carry the new state.
+ *
+ * @param entity     product or category
+ * @param id         id of the changed entity
+ * @param type       what happened to it
+ * @param origin     product-service instance that made the change
+ * @param occurredAt commit time on the origin
+ * @param product    product state for product upserts, otherwise null
+ * @param category   category state for category upserts, otherwise null
+ */
+public record CatalogChangeEvent(
+        CatalogEntity entity,
+        Long id,
+        ChangeType type,
+        String origin,
+        Instant occurredAt,
+        ProductResponse product,
+        CategoryResponse category
+) {
+}
@@ -12,4 +12,5 @@ import lombok.Setter;
 public class CategoryResponse {
     private Long id;
     private String name;
+    private Long version;
 }
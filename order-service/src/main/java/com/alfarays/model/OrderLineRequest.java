@@ -0,0 +1,26 @@
+package com.alfarays.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "OrderLineRequest", description = "One product of an order")
+public class OrderLineRequest {
+
+    @NotNull(message = "Product ID is required")
+    @Positive(message = "Product ID must be a positive number")
+    @Schema(description = "ID of the product to order", example = "42")
+    private Long productId;
+
+    @Positive(message = "Quantity must be a positive number")
+    @Schema(description = "Number of units", example = "2")
+    private int quantity = 1;
+}
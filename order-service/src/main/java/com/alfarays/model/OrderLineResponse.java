@@ -0,0 +1,17 @@
+package com.alfarays.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderLineResponse {
+
+    private Long productId;
+    private String productName;
+    private int quantity;
+}
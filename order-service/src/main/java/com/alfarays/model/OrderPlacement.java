@@ -0,0 +1,11 @@
+package com.alfarays.model;
+
+/**
+ * Outcome of a create request: the order, and whether this request booked it or replayed an
+ * earlier request with the same idempotency key
+ */
+public record OrderPlacement(
+        OrderResponse order,
+        boolean created
+) {
+}
@@ -0,0 +1,29 @@
+package com.alfarays.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(
+        name = "OrderRequest",
+        description = "Request payload for placing an order of one or more products."
+)
+public class OrderRequest {
+
+    @Valid
+    @NotEmpty(message = "An order needs at least one line")
+    @Size(max = 100, message = "An order can have at most 100 lines")
+    @Schema(description = "Products and quantities to order")
+    private List<OrderLineRequest> lines;
+}
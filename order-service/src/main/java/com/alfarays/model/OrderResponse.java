@@ -1,24 +1,28 @@
 package com.alfarays.model;
 
 import com.alfarays.enums.OrderStatus;
-import jakarta.persistence.EnumType;
-import jakarta.persistence.Enumerated;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class OrderResponse {
 
-    private ProductResponse product;
+    private Long id;
+
+    private String referenceNumber;
 
-    @Enumerated(EnumType.STRING)
     private OrderStatus status;
 
-    private String referenceNumber;
+    private LocalDateTime createdAt;
+
+    private List<OrderLineResponse> lines;
 
 }
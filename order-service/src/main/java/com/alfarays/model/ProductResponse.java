@@ -14,6 +14,7 @@ public class ProductResponse {
 
     private Long id;
     private String name;
+    private Long version;
     private Map<String, String> specification;
     private CategoryResponse category;
     private List<ImageResponse> images;
@@ -0,0 +1,34 @@
+package com.alfarays.repository;
+
+import com.alfarays.entity.Order;
+import com.alfarays.enums.OrderStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // Served by uk_orders_idempotency_key
+    @EntityGraph(attributePaths = "lines")
+    Optional<Order> findByIdempotencyKey(String idempotencyKey);
+
+    @EntityGraph(attributePaths = "lines")
+    Optional<Order> findByReferenceNumber(String referenceNumber);
+
+    // One statement per consumed batch, matched through uk_orders_reference_number. Orders no longer
+    // in the source status are left alone, so redelivered references change nothing
+    @Modifying
+    @Query("""
+            update Order o set o.status = :to, o.version = o.version + 1
+            where o.referenceNumber in :referenceNumbers and o.status = :from""")
+    int transition(@Param("referenceNumbers") Collection<String> referenceNumbers,
+                   @Param("from") OrderStatus from,
+                   @Param("to") OrderStatus to);
+}
@@ -0,0 +1,9 @@
+package com.alfarays.repository;
+
+import com.alfarays.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+}
@@ -1,60 +1,74 @@
 package com.alfarays.resource;
 
-import com.alfarays.client.ProductServiceClient;
 import com.alfarays.model.GlobalResponse;
-import com.alfarays.model.OrderConfirmationDto;
+import com.alfarays.model.OrderPlacement;
+import com.alfarays.model.OrderRequest;
+import com.alfarays.model.OrderResponse;
+import com.alfarays.service.OrderService;
 import io.github.resilience4j.retry.annotation.Retry;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDateTime;
-import java.util.UUID;
-
 @RestController
 @RequestMapping("/orders")
 @RequiredArgsConstructor
 @Slf4j
 public class OrderResource {
 
-    private final ProductServiceClient productService;
-    private final StreamBridge streamBridge;
-
-    @GetMapping("/create/{productId}")
-    @Retry(name = "productById", fallbackMethod = "fallbackMethod")
-    public ResponseEntity<GlobalResponse<?>> productById(@PathVariable("productId") Long productId) {
-        var product = productService.get(productId);
-        orderConfirmationEvent(
-                new OrderConfirmationDto(
-                        productId,
-                        UUID.randomUUID().toString(),
-                        "PENDING",
-                        LocalDateTime.now()
-                )
-        );
-        return ResponseEntity.ok(
-                GlobalResponse.success("Your order has been placed successfully.", product)
-        );
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final OrderService orderService;
+
+    /**
+     * Safe to retry with the same Idempotency-Key: a repeat returns the order the first request
+     * placed (200) instead of placing another one (201). "/" is what the gateway forwards for
+     * /order-service
+     */
+    @PostMapping({"", "/"})
+    @Retry(name = "createOrder", fallbackMethod = "fallbackMethod")
+    public ResponseEntity<GlobalResponse<?>> create(@RequestHeader(IDEMPOTENCY_KEY) String idempotencyKey,
+                                                    @Valid @RequestBody OrderRequest request) {
+        OrderPlacement placement;
+        try {
+            placement = orderService.create(idempotencyKey, request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(GlobalResponse.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(GlobalResponse.error(e.getMessage()));
+        }
+
+        OrderResponse order = placement.order();
+        if (!placement.created()) {
+            return ResponseEntity.ok(GlobalResponse.success("Your order has already been placed.", order));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(GlobalResponse.success("Your order has been placed successfully.", order));
     }
 
+    @GetMapping("/{referenceNumber}")
+    public ResponseEntity<GlobalResponse<?>> get(@PathVariable String referenceNumber) {
+        try {
+            return ResponseEntity.ok(GlobalResponse.success("Order retrieved.", orderService.get(referenceNumber)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(GlobalResponse.error(e.getMessage()));
+        }
+    }
 
-    public ResponseEntity<GlobalResponse<?>> fallbackMethod(Throwable throwable) {
+    public ResponseEntity<GlobalResponse<?>> fallbackMethod(String idempotencyKey, OrderRequest request, Throwable throwable) {
         log.debug(" ********** fallbackMethod() invoked ********** ");
         return new ResponseEntity<>(GlobalResponse.error(throwable.getLocalizedMessage()), HttpStatus.BAD_REQUEST);
     }
 
-    private void orderConfirmationEvent(OrderConfirmationDto dto) {
-        log.info("Order confirmation event publishing....");
-        var result = streamBridge.send("sendCommunication-out-0", dto);
-        log.info("Is the Communication request successfully triggered ? : {}", result);
-    }
-
 /** @RateLimiter(name= "getJavaVersion", fallbackMethod = "getJavaVersionFallback") */
 
 }
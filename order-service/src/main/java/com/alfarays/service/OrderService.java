@@ -1,22 +1,174 @@
 package com.alfarays.service;
 
-import com.alfarays.client.ProductServiceClient;
+import com.alfarays.client.ProductLoader;
+import com.alfarays.entity.Order;
+import com.alfarays.entity.OrderLine;
+import com.alfarays.enums.OrderStatus;
+import com.alfarays.model.OrderLineRequest;
+import com.alfarays.messaging.OrderOutbox;
+import com.alfarays.model.OrderConfirmationDto;
+import com.alfarays.model.OrderLineResponse;
+import com.alfarays.model.OrderPlacement;
+import com.alfarays.model.OrderRequest;
 import com.alfarays.model.OrderResponse;
 import com.alfarays.model.ProductResponse;
-import org.springframework.http.ResponseEntity;
+import com.alfarays.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Places orders idempotently.
+ *
+ * A create is keyed by the client's idempotency key. A replay of a known key returns the order the
+ * first request booked; a key reused for different lines is refused. Two concurrent requests with a
+ * new key race on the unique index, and the loser reads back the winner's order. Products are
+ * resolved through the coalescing loader before any connection is taken, and the order with its lines is
+ * written in a single short transaction together with its confirmation message in the outbox.
+ */
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class OrderService {
 
+    private final OrderRepository orderRepository;
+    private final ProductLoader productLoader;
+    private final OrderOutbox orderOutbox;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderPlacement create(String idempotencyKey, OrderRequest request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > 64) {
+            throw new IllegalArgumentException("Idempotency key must be 1 to 64 characters");
+        }
+        String requestHash = requestHash(request);
+
+        Optional<Order> existing = orderRepository.findByIdempotencyKey(idempotencyKey);
+        if (existing.isPresent()) {
+            return replay(existing.get(), requestHash);
+        }
+
+        Map<Long, ProductResponse> products = products(request);
+
+        Order order = new Order();
+        order.setIdempotencyKey(idempotencyKey);
+        order.setRequestHash(requestHash);
+        order.setReferenceNumber(UUID.randomUUID().toString());
+        order.setStatus(OrderStatus.PENDING);
+        order.setCreatedAt(LocalDateTime.now());
+        for (OrderLineRequest line : request.getLines()) {
+            OrderLine orderLine = new OrderLine();
+            orderLine.setProductId(line.getProductId());
+            orderLine.setProductName(products.get(line.getProductId()).getName());
+            orderLine.setQuantity(line.getQuantity());
+            order.addLine(orderLine);
+        }
+
+        try {
+            Order saved = transactionTemplate.execute(status -> {
+                Order persisted = orderRepository.saveAndFlush(order);
+                orderOutbox.append(persisted.getId(), OrderOutbox.ORDER_CONFIRMATION, confirmation(persisted));
+                return persisted;
+            });
+            log.info("Order {} placed with {} lines", saved.getReferenceNumber(), saved.getLines().size());
+            return new OrderPlacement(toResponse(saved), true);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request with the same key committed first
+            return orderRepository.findByIdempotencyKey(idempotencyKey)
+                    .map(winner -> replay(winner, requestHash))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    public OrderResponse get(String referenceNumber) {
+        return orderRepository.findByReferenceNumber(referenceNumber)
+                .map(OrderService::toResponse)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found with reference: " + referenceNumber));
+    }
+
+    @Transactional
     public boolean updateOrderStatus(String orderReference) {
-        boolean isUpdated = false;
-        if (orderReference != null) {
-            //TODO: perform db operation
-            isUpdated = true;
+        if (orderReference == null) return false;
+        return confirm(List.of(orderReference)) > 0;
+    }
+
+    /**
+     * Confirms the pending orders among the given references with a single UPDATE and returns how
+     * many changed. Unknown and already confirmed references are ignored.
+     */
+    @Transactional
+    public int confirm(Collection<String> orderReferences) {
+        if (orderReferences.isEmpty()) return 0;
+        return orderRepository.transition(orderReferences, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+    }
+
+    private OrderPlacement replay(Order order, String requestHash) {
+        if (!order.getRequestHash().equals(requestHash)) {
+            throw new IllegalStateException("Idempotency key was already used for a different order");
+        }
+        log.debug("Replayed order {} for a repeated idempotency key", order.getReferenceNumber());
+        return new OrderPlacement(toResponse(order), false);
+    }
+
+    private Map<Long, ProductResponse> products(OrderRequest request) {
+        Set<Long> ids = new LinkedHashSet<>();
+        request.getLines().forEach(line -> ids.add(line.getProductId()));
+
+        Map<Long, ProductResponse> products = productLoader.getAll(ids);
+        for (Long id : ids) {
+            if (!products.containsKey(id)) {
+                throw new IllegalArgumentException("Product not found with id: " + id);
+            }
         }
-        return isUpdated;
+        return products;
     }
 
+    private static String requestHash(OrderRequest request) {
+        StringBuilder canonical = new StringBuilder();
+        for (OrderLineRequest line : request.getLines()) {
+            canonical.append(line.getProductId()).append(':').append(line.getQuantity()).append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 
+    private static OrderConfirmationDto confirmation(Order order) {
+        return new OrderConfirmationDto(
+                order.getLines().get(0).getProductId(),
+                order.getReferenceNumber(),
+                order.getStatus().name(),
+                order.getCreatedAt()
+        );
+    }
+
+    private static OrderResponse toResponse(Order order) {
+        return new OrderResponse(
+                order.getId(),
+                order.getReferenceNumber(),
+                order.getStatus(),
+                order.getCreatedAt(),
+                order.getLines().stream()
+                        .map(line -> new OrderLineResponse(line.getProductId(), line.getProductName(), line.getQuantity()))
+                        .toList()
+        );
+    }
 }
@@ -0,0 +1,161 @@
+package com.alfarays.client;
+
+import com.alfarays.model.ProductResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductLoaderTests {
+
+    private final RecordingClient client = new RecordingClient();
+    private final ProductSnapshot snapshot = new ProductSnapshot(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+
+    @Test
+    void loneCallerWaitsOutTheWindowThenSendsOneBatch() {
+        ProductLoader loader = loader(Duration.ofMillis(50), 100, Duration.ofSeconds(5));
+
+        long started = System.nanoTime();
+        Map<Long, ProductResponse> products = loader.getAll(List.of(1L, 2L));
+
+        assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+        assertThat(products).containsOnlyKeys(1L, 2L);
+        assertThat(client.calls).containsExactly(List.of(1L, 2L));
+    }
+
+    @Test
+    void fullBatchIsSentAtOnceAndTheRestStartsANewOne() {
+        ProductLoader loader = loader(Duration.ofSeconds(2), 2, Duration.ofSeconds(5));
+
+        long started = System.nanoTime();
+        Map<Long, ProductResponse> products = loader.getAll(List.of(1L, 2L, 3L, 4L, 5L));
+
+        assertThat(products.keySet()).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(client.calls).containsExactly(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+        // only the last, partial batch waits out the window
+        assertThat(System.nanoTime() - started).isLessThan(Duration.ofSeconds(4).toNanos());
+    }
+
+    @Test
+    void concurrentCallersForTheSameIdShareOneLookup() throws Exception {
+        ProductLoader loader = loader(Duration.ofMillis(300), 100, Duration.ofSeconds(5));
+
+        CompletableFuture<Map<Long, ProductResponse>> leader = CompletableFuture.supplyAsync(() -> loader.getAll(List.of(7L)));
+        Thread.sleep(50);
+        CompletableFuture<Map<Long, ProductResponse>> follower = CompletableFuture.supplyAsync(() -> loader.getAll(List.of(7L, 8L)));
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).containsOnlyKeys(7L);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).containsOnlyKeys(7L, 8L);
+        assertThat(client.calls).containsExactly(List.of(7L, 8L));
+        assertThat(leader.get().get(7L)).isSameAs(follower.get().get(7L));
+    }
+
+    @Test
+    void snapshotHitsSkipTheClient() {
+        ProductLoader loader = loader(Duration.ofMillis(1), 100, Duration.ofSeconds(5));
+        loader.getAll(List.of(1L));
+
+        assertThat(loader.get(1L).getName()).isEqualTo("Product 1");
+        assertThat(client.calls).hasSize(1);
+    }
+
+    @Test
+    void failureReachesEveryCallerInTheBatch() throws Exception {
+        client.behaviour = ids -> {
+            throw new IllegalStateException("product-service down");
+        };
+        assertFanOut(IllegalStateException.class);
+    }
+
+    @Test
+    void errorsAlsoReachEveryCallerInsteadOfLeavingThemWaiting() throws Exception {
+        client.behaviour = ids -> {
+            throw new NoClassDefFoundError("decoder");
+        };
+        assertFanOut(NoClassDefFoundError.class);
+    }
+
+    @Test
+    void followersStopWaitingForAStuckLeader() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        client.behaviour = ids -> {
+            release.await();
+            return products(ids);
+        };
+        ProductLoader loader = loader(Duration.ofMillis(100), 100, Duration.ofMillis(200));
+
+        CompletableFuture<Map<Long, ProductResponse>> leader = CompletableFuture.supplyAsync(() -> loader.getAll(List.of(1L)));
+        Thread.sleep(20);
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> loader.getAll(List.of(1L)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Timed out");
+        assertThat(System.nanoTime() - started).isLessThan(Duration.ofSeconds(2).toNanos());
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).containsOnlyKeys(1L);
+    }
+
+    private void assertFanOut(Class<? extends Throwable> expected) throws Exception {
+        ProductLoader loader = loader(Duration.ofMillis(200), 100, Duration.ofSeconds(5));
+
+        CompletableFuture<Map<Long, ProductResponse>> leader = CompletableFuture.supplyAsync(() -> loader.getAll(List.of(1L)));
+        Thread.sleep(50);
+        CompletableFuture<Map<Long, ProductResponse>> follower = CompletableFuture.supplyAsync(() -> loader.getAll(List.of(2L)));
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(expected);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(expected);
+        assertThat(client.calls).containsExactly(List.of(1L, 2L));
+    }
+
+    private ProductLoader loader(Duration window, int maxBatchSize, Duration waitTimeout) {
+        return new ProductLoader(client, snapshot, window, maxBatchSize, waitTimeout);
+    }
+
+    private static Map<Long, ProductResponse> products(Collection<Long> ids) {
+        return ids.stream().collect(Collectors.toMap(Function.identity(),
+                id -> ProductResponse.builder().id(id).name("Product " + id).version(0L).build()));
+    }
+
+    private static final class RecordingClient implements ProductServiceClient {
+
+        private final List<List<Long>> calls = new CopyOnWriteArrayList<>();
+        private volatile Behaviour behaviour = ProductLoaderTests::products;
+
+        @Override
+        public ResponseEntity<ProductResponse> get(Long id) {
+            throw new UnsupportedOperationException("single lookups are coalesced");
+        }
+
+        @Override
+        public ResponseEntity<Map<Long, ProductResponse>> getBatch(Collection<Long> ids) {
+            calls.add(List.copyOf(ids));
+            try {
+                return ResponseEntity.ok(behaviour.apply(ids));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Behaviour {
+        Map<Long, ProductResponse> apply(Collection<Long> ids) throws Exception;
+    }
+}
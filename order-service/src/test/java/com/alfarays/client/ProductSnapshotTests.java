@@ -0,0 +1,109 @@
+package com.alfarays.client;
+
+import com.alfarays.enums.CatalogEntity;
+import com.alfarays.enums.ChangeType;
+import com.alfarays.model.CatalogChangeEvent;
+import com.alfarays.model.CategoryResponse;
+import com.alfarays.model.ProductResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSnapshotTests {
+
+    private final ProductSnapshot snapshot = new ProductSnapshot(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+
+    @Test
+    void olderProductVersionDoesNotReplaceNewerOne() {
+        snapshot.put(product(1L, "Lamp v3", 3L, category(10L, "Lighting", 0L)));
+        snapshot.put(product(1L, "Lamp v2", 2L, category(10L, "Lighting", 0L)));
+
+        assertThat(snapshot.get(1L).getName()).isEqualTo("Lamp v3");
+
+        snapshot.put(product(1L, "Lamp v4", 4L, category(10L, "Lighting", 0L)));
+
+        assertThat(snapshot.get(1L).getName()).isEqualTo("Lamp v4");
+    }
+
+    @Test
+    void categoryVersionBreaksTiesAtTheSameProductVersion() {
+        snapshot.put(product(1L, "Lamp", 3L, category(10L, "Lights", 5L)));
+        snapshot.put(product(1L, "Lamp", 3L, category(10L, "Lighting", 4L)));
+
+        assertThat(snapshot.get(1L).getCategory().getName()).isEqualTo("Lights");
+
+        snapshot.put(product(1L, "Lamp", 3L, category(10L, "Home lighting", 6L)));
+
+        assertThat(snapshot.get(1L).getCategory().getName()).isEqualTo("Home lighting");
+    }
+
+    @Test
+    void categoryRenameIsCopiedIntoProductsThatCarryIt() {
+        snapshot.put(product(1L, "Lamp", 1L, category(10L, "Lighting", 1L)));
+        snapshot.put(product(2L, "Chair", 1L, category(20L, "Furniture", 1L)));
+
+        snapshot.apply(categoryUpserted(category(10L, "Lights", 2L)));
+
+        assertThat(snapshot.get(1L).getCategory().getName()).isEqualTo("Lights");
+        assertThat(snapshot.get(1L).getVersion()).isEqualTo(1L);
+        assertThat(snapshot.get(2L).getCategory().getName()).isEqualTo("Furniture");
+    }
+
+    @Test
+    void categoryEventSkipsEntriesWithANewerCategoryVersion() {
+        snapshot.put(product(1L, "Lamp", 1L, category(10L, "Lights", 3L)));
+
+        snapshot.apply(categoryUpserted(category(10L, "Lighting", 2L)));
+
+        assertThat(snapshot.get(1L).getCategory().getName()).isEqualTo("Lights");
+    }
+
+    @Test
+    void categoryEventLeavesProductsInOtherCategoriesAlone() {
+        ProductResponse moved = product(1L, "Lamp", 2L, category(20L, "Furniture", 1L));
+        snapshot.put(moved);
+
+        snapshot.apply(categoryUpserted(category(10L, "Lights", 9L)));
+
+        assertThat(snapshot.get(1L)).isSameAs(moved);
+    }
+
+    @Test
+    void productDeleteEvicts() {
+        snapshot.put(product(1L, "Lamp", 1L, category(10L, "Lighting", 1L)));
+
+        snapshot.apply(new CatalogChangeEvent(CatalogEntity.PRODUCT, 1L, ChangeType.DELETED,
+                "product-service-1", Instant.now(), null, null));
+
+        assertThat(snapshot.get(1L)).isNull();
+    }
+
+    @Test
+    void categoryDeleteEvictsOnlyTheProductsThatCarryIt() {
+        snapshot.put(product(1L, "Lamp", 1L, category(10L, "Lighting", 1L)));
+        snapshot.put(product(2L, "Chair", 1L, category(20L, "Furniture", 1L)));
+
+        snapshot.apply(new CatalogChangeEvent(CatalogEntity.CATEGORY, 10L, ChangeType.DELETED,
+                "product-service-1", Instant.now(), null, null));
+
+        assertThat(snapshot.get(1L)).isNull();
+        assertThat(snapshot.get(2L)).isNotNull();
+    }
+
+    private static CatalogChangeEvent categoryUpserted(CategoryResponse category) {
+        return new CatalogChangeEvent(CatalogEntity.CATEGORY, category.getId(), ChangeType.UPSERTED,
+                "product-service-1", Instant.now(), null, category);
+    }
+
+    private static ProductResponse product(Long id, String name, Long version, CategoryResponse category) {
+        return ProductResponse.builder().id(id).name(name).version(version).category(category).build();
+    }
+
+    private static CategoryResponse category(Long id, String name, Long version) {
+        return new CategoryResponse(id, name, version);
+    }
+}
@@ -0,0 +1,111 @@
+package com.alfarays.functions;
+
+import com.alfarays.client.ProductLoader;
+import com.alfarays.entity.Order;
+import com.alfarays.enums.OrderStatus;
+import com.alfarays.model.OrderLineRequest;
+import com.alfarays.model.OrderRequest;
+import com.alfarays.model.ProductResponse;
+import com.alfarays.repository.OrderRepository;
+import com.alfarays.service.OrderService;
+import com.alfarays.support.QueryCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:orders;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "order.outbox.poll-interval=1h"
+})
+@Import(TestChannelBinderConfiguration.class)
+class OrderFunctionsTests {
+
+    @MockitoBean
+    private ProductLoader productLoader;
+
+    @Autowired
+    private Consumer<List<String>> updateCommunication;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void products() {
+        when(productLoader.getAll(anyCollection())).thenAnswer(invocation -> products(invocation.getArgument(0)));
+    }
+
+    @Test
+    void batchIsDedupedAndConfirmedWithOneUpdate() {
+        String first = place();
+        String second = place();
+        String untouched = place();
+        QueryCounter counter = new QueryCounter(entityManagerFactory);
+        counter.reset();
+
+        updateCommunication.accept(Arrays.asList(first, first, " " + second + " ", null, "", "unknown-reference"));
+
+        counter.assertStatements(1);
+        assertThat(order(first).getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(order(second).getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(order(untouched).getStatus()).isEqualTo(OrderStatus.PENDING);
+        // a duplicate within the batch bumps the version once, like a single delivery
+        assertThat(order(first).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void redeliveredBatchChangesNothing() {
+        String reference = place();
+        updateCommunication.accept(List.of(reference));
+        Long version = order(reference).getVersion();
+        QueryCounter counter = new QueryCounter(entityManagerFactory);
+        counter.reset();
+
+        updateCommunication.accept(List.of(reference, reference));
+
+        counter.assertStatements(1);
+        assertThat(order(reference).getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(order(reference).getVersion()).isEqualTo(version);
+    }
+
+    private String place() {
+        OrderRequest request = new OrderRequest(List.of(new OrderLineRequest(1L, 1)));
+        return orderService.create(UUID.randomUUID().toString(), request).order().getReferenceNumber();
+    }
+
+    private Order order(String referenceNumber) {
+        return orderRepository.findByReferenceNumber(referenceNumber).orElseThrow();
+    }
+
+    private static Map<Long, ProductResponse> products(Collection<Long> ids) {
+        return ids.stream().collect(Collectors.toMap(Function.identity(),
+                id -> ProductResponse.builder().id(id).name("Product " + id).version(0L).build()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.alfarays.messaging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "order.outbox.poll-interval=1h",
+        "order.outbox.confirm-timeout=1s"
+})
+@Import(TestChannelBinderConfiguration.class)
+class OutboxRelayTests {
+
+    @MockitoBean
+    private StreamBridge streamBridge;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private OrderOutbox orderOutbox;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> sent = new CopyOnWriteArrayList<>();
+    private final Set<Long> nacked = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void broker() {
+        jdbcTemplate.update("delete from order_outbox");
+        // confirms every message straight away, nacking the orders listed in nacked
+        when(streamBridge.send(anyString(), any())).thenAnswer(invocation -> {
+            Message<?> message = invocation.getArgument(1);
+            Long orderId = (Long) message.getHeaders().get(OutboxRelay.ORDER_ID_HEADER);
+            CorrelationData correlation = (CorrelationData) message.getHeaders().get(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION);
+            sent.add(orderId);
+            boolean ack = !nacked.contains(orderId);
+            correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "rejected"));
+            return true;
+        });
+    }
+
+    @Test
+    void onlyTheAcknowledgedPrefixIsDeleted() {
+        append(1L, 2L, 3L, 4L);
+        nacked.add(3L);
+
+        relay.relay();
+
+        assertThat(sent).containsExactly(1L, 2L, 3L, 4L);
+        // 4 was acked, but it stays behind the nacked 3 so the two leave in order on the retry
+        assertThat(pending()).containsExactly(3L, 4L);
+
+        nacked.clear();
+        sent.clear();
+        relay.relay();
+
+        assertThat(sent).containsExactly(3L, 4L);
+        assertThat(pending()).isEmpty();
+    }
+
+    @Test
+    void relaySkipsWhileAnotherReplicaHoldsTheHead() throws Exception {
+        append(1L, 2L);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> otherReplica = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    jdbcTemplate.queryForList("select id from order_outbox order by id limit 1 for update", Long.class);
+                    locked.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        relay.relay();
+
+        assertThat(sent).isEmpty();
+        assertThat(pending()).containsExactly(1L, 2L);
+
+        release.countDown();
+        otherReplica.get(10, TimeUnit.SECONDS);
+        relay.relay();
+
+        assertThat(sent).containsExactly(1L, 2L);
+        assertThat(pending()).isEmpty();
+    }
+
+    private void append(Long... orderIds) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (Long orderId : orderIds) {
+                orderOutbox.append(orderId, OrderOutbox.ORDER_CONFIRMATION, Map.of("orderReference", "order-" + orderId));
+            }
+        });
+    }
+
+    private List<Long> pending() {
+        return jdbcTemplate.queryForList("select aggregate_id from order_outbox order by id", Long.class);
+    }
+}
@@ -0,0 +1,131 @@
+package com.alfarays.service;
+
+import com.alfarays.client.ProductLoader;
+import com.alfarays.model.GlobalResponse;
+import com.alfarays.model.OrderLineRequest;
+import com.alfarays.model.OrderPlacement;
+import com.alfarays.model.OrderRequest;
+import com.alfarays.model.OrderResponse;
+import com.alfarays.model.ProductResponse;
+import com.alfarays.repository.OrderRepository;
+import com.alfarays.resource.OrderResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:orders;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "order.outbox.poll-interval=1h"
+})
+@Import(TestChannelBinderConfiguration.class)
+class OrderServiceTests {
+
+    @MockitoBean
+    private ProductLoader productLoader;
+
+    @Autowired
+    private OrderResource orderResource;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @BeforeEach
+    void products() {
+        when(productLoader.getAll(anyCollection())).thenAnswer(invocation -> products(invocation.getArgument(0)));
+    }
+
+    @Test
+    void replayReturnsTheFirstOrderWithOk() {
+        String key = UUID.randomUUID().toString();
+        OrderRequest request = request(line(1L, 2), line(2L, 1));
+
+        ResponseEntity<GlobalResponse<?>> first = orderResource.create(key, request);
+        ResponseEntity<GlobalResponse<?>> replay = orderResource.create(key, request(line(1L, 2), line(2L, 1)));
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(replay.getStatusCode()).isEqualTo(HttpStatus.OK);
+        OrderResponse placed = (OrderResponse) first.getBody().getData();
+        OrderResponse replayed = (OrderResponse) replay.getBody().getData();
+        assertThat(replayed.getReferenceNumber()).isEqualTo(placed.getReferenceNumber());
+        assertThat(replayed.getLines()).hasSize(2);
+        // the replay is answered from the stored order, without resolving products again
+        verify(productLoader, times(1)).getAll(anyCollection());
+    }
+
+    @Test
+    void keyReusedForDifferentLinesIsAConflict() {
+        String key = UUID.randomUUID().toString();
+
+        ResponseEntity<GlobalResponse<?>> first = orderResource.create(key, request(line(1L, 2)));
+        ResponseEntity<GlobalResponse<?>> reused = orderResource.create(key, request(line(1L, 3)));
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(reused.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(reused.getBody().getMessage()).contains("different order");
+        assertThat(orderRepository.findByIdempotencyKey(key).orElseThrow().getLines().get(0).getQuantity()).isEqualTo(2);
+    }
+
+    @Test
+    void requestThatLosesTheUniqueIndexRaceReadsBackTheWinner() {
+        String key = UUID.randomUUID().toString();
+        AtomicBoolean raced = new AtomicBoolean();
+        AtomicReference<OrderPlacement> winner = new AtomicReference<>();
+        // the first caller has already missed the key when a second one commits the same order
+        when(productLoader.getAll(anyCollection())).thenAnswer(invocation -> {
+            if (raced.compareAndSet(false, true)) {
+                winner.set(CompletableFuture.supplyAsync(() -> orderService.create(key, request(line(5L, 1)))).join());
+            }
+            return products(invocation.getArgument(0));
+        });
+
+        OrderPlacement loser = orderService.create(key, request(line(5L, 1)));
+
+        assertThat(winner.get().created()).isTrue();
+        assertThat(loser.created()).isFalse();
+        assertThat(loser.order().getReferenceNumber()).isEqualTo(winner.get().order().getReferenceNumber());
+        assertThat(orderRepository.findByIdempotencyKey(key).orElseThrow().getReferenceNumber())
+                .isEqualTo(winner.get().order().getReferenceNumber());
+    }
+
+    private static Map<Long, ProductResponse> products(Collection<Long> ids) {
+        return ids.stream().collect(Collectors.toMap(Function.identity(),
+                id -> ProductResponse.builder().id(id).name("Product " + id).version(0L).build()));
+    }
+
+    private static OrderRequest request(OrderLineRequest... lines) {
+        return new OrderRequest(List.of(lines));
+    }
+
+    private static OrderLineRequest line(Long productId, int quantity) {
+        return new OrderLineRequest(productId, quantity);
+    }
+}
@@ -0,0 +1,35 @@
+package com.alfarays.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the JDBC statements Hibernate prepares between reset() and assertStatements(),
+ * so tests can pin the number of SQL round-trips an operation costs.
+ */
+public final class QueryCounter {
+
+    private final Statistics statistics;
+
+    public QueryCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    public long count() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    public void assertStatements(long expected) {
+        assertThat(count())
+                .as("prepared SQL statements")
+                .isEqualTo(expected);
+    }
+}
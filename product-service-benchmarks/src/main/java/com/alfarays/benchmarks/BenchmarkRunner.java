@@ -0,0 +1,47 @@
+package com.alfarays.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Entry point of benchmarks.jar: the regular JMH command line, but results are written as JSON to
+ * results/product-service-{version}.json unless -rf / -rff say otherwise, so every release leaves a
+ * file that can be diffed against the previous one (or loaded into jmh.morethan.io).
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            File result = new File("results", "product-service-" + version() + ".json");
+            result.getParentFile().mkdirs();
+            options.result(result.getPath());
+        }
+
+        new Runner(options.build()).run();
+    }
+
+    private static String version() {
+        String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+        return version != null ? version : "dev";
+    }
+}
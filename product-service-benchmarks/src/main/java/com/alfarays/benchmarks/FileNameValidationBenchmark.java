@@ -0,0 +1,45 @@
+package com.alfarays.benchmarks;
+
+import com.alfarays.storage.FileNames;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload name checks ImageService runs per file: extension extraction, the allow-list lookup against
+ * image.allowed-extensions and the content-addressed name
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileNameValidationBenchmark {
+
+    private static final String ALLOWED = "jpg,jpeg,png,gif,webp";
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    // last allowed entry, a rejected type and a name without extension
+    @Param({"holiday.photo.WEBP", "invoice.pdf", "README"})
+    public String filename;
+
+    @Benchmark
+    public boolean isAllowed() {
+        return FileNames.isAllowedExtension(FileNames.extension(filename).toLowerCase(), ALLOWED);
+    }
+
+    @Benchmark
+    public String secureName() {
+        return FileNames.secureName(HASH, filename);
+    }
+}
@@ -0,0 +1,62 @@
+package com.alfarays.benchmarks;
+
+import com.alfarays.entity.Category;
+import com.alfarays.entity.Image;
+import com.alfarays.entity.Product;
+import com.alfarays.mapper.ProductMapper;
+import com.alfarays.model.ProductResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalog data shaped like production rows: a handful of images and specification entries per product
+ */
+final class Fixtures {
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private Fixtures() {
+    }
+
+    static Product product(long id, int images, int specifications) {
+        Category category = new Category();
+        category.setId(3L);
+        category.setName("Electronics");
+
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Galaxy S24 Ultra " + id);
+        product.setVersion(7L);
+        product.setCategory(category);
+
+        Map<String, String> specification = new HashMap<>();
+        for (int i = 0; i < specifications; i++) {
+            specification.put("key" + i, "value " + i);
+        }
+        product.setSpecification(specification);
+
+        for (int i = 0; i < images; i++) {
+            Image image = new Image();
+            image.setId(id * 100 + i);
+            image.setName(HASH + ".jpg");
+            image.setOriginalName("IMG_" + i + ".JPG");
+            image.setContentType("image/jpeg");
+            image.setSize(2_400_000L);
+            image.setContentHash(HASH);
+            image.setProduct(product);
+            product.getImages().add(image);
+        }
+        return product;
+    }
+
+    static List<ProductResponse> responses(int count, int images, int specifications) {
+        List<ProductResponse> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            responses.add(ProductMapper.toResponse(product(i + 1, images, specifications)));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,174 @@
+package com.alfarays.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product inserts per second under the JDBC traffic Hibernate produces for the two id strategies.
+ *
+ * SEQUENCE_PER_ROW is allocationSize = 1 without batching: every row takes its id from the sequence
+ * table in a separate transaction (Hibernate isolates table-emulated sequence access), then is
+ * inserted on its own. POOLED_LO_BATCHED is allocationSize = 50 with pooled-lo and
+ * hibernate.jdbc.batch_size = 50: one sequence transaction and one JDBC batch per 50 rows.
+ *
+ * Defaults to in-memory H2, which hides network latency and so understates the gap; point
+ * -Djdbc.url (plus -Djdbc.user / -Djdbc.password) at MySQL, with rewriteBatchedStatements=true as in
+ * the service's datasource, for numbers that reflect production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertThroughputBenchmark {
+
+    private static final int ROWS = 500;
+    private static final String INSERT = "insert into benchmark_products (name, version, id) values (?, ?, ?)";
+
+    public enum Strategy {
+        SEQUENCE_PER_ROW,
+        POOLED_LO_BATCHED
+    }
+
+    @Param({"SEQUENCE_PER_ROW", "POOLED_LO_BATCHED"})
+    public Strategy strategy;
+
+    @Param("50")
+    public int blockSize;
+
+    private Connection connection;
+    private Connection sequenceConnection;
+    private long nextName;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException {
+        String url = System.getProperty("jdbc.url", "jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        String user = System.getProperty("jdbc.user", "root");
+        String password = System.getProperty("jdbc.password", "root");
+
+        connection = DriverManager.getConnection(url, user, password);
+        sequenceConnection = DriverManager.getConnection(url, user, password);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists benchmark_products ("
+                    + "id bigint not null primary key, name varchar(255) not null, version bigint not null)");
+            statement.execute("create table if not exists benchmark_product_sequence (next_val bigint)");
+            statement.execute("delete from benchmark_products");
+            statement.execute("delete from benchmark_product_sequence");
+            statement.execute("insert into benchmark_product_sequence values (1)");
+        }
+        connection.setAutoCommit(false);
+        sequenceConnection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() throws SQLException {
+        // keep the table size, and so index depth, comparable across iterations
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("delete from benchmark_products");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table benchmark_products");
+            statement.execute("drop table benchmark_product_sequence");
+        }
+        connection.commit();
+        sequenceConnection.close();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insert() throws SQLException {
+        if (strategy == Strategy.SEQUENCE_PER_ROW) {
+            insertPerRow();
+        } else {
+            insertBatched();
+        }
+        connection.commit();
+    }
+
+    private void insertPerRow() throws SQLException {
+        for (int i = 0; i < ROWS; i++) {
+            long id = reserve(1);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                bind(insert, id);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    private void insertBatched() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            long id = 0;
+            long blockEnd = 0;
+            int pending = 0;
+            for (int i = 0; i < ROWS; i++) {
+                if (id == blockEnd) {
+                    id = reserve(blockSize);
+                    blockEnd = id + blockSize;
+                }
+                bind(insert, id++);
+                insert.addBatch();
+                if (++pending == blockSize) {
+                    insert.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) insert.executeBatch();
+        }
+    }
+
+    private void bind(PreparedStatement insert, long id) throws SQLException {
+        insert.setString(1, "Product " + nextName++);
+        insert.setLong(2, 0);
+        insert.setLong(3, id);
+    }
+
+    /**
+     * Same statements as Hibernate's table-backed sequence on MySQL: read under a row lock, advance,
+     * commit
+     */
+    private long reserve(int count) throws SQLException {
+        long next;
+        try (PreparedStatement select = sequenceConnection.prepareStatement(
+                "select next_val from benchmark_product_sequence for update");
+             ResultSet result = select.executeQuery()) {
+            result.next();
+            next = result.getLong(1);
+        }
+        try (PreparedStatement update = sequenceConnection.prepareStatement(
+                "update benchmark_product_sequence set next_val = ? where next_val = ?")) {
+            update.setLong(1, next + count);
+            update.setLong(2, next);
+            update.executeUpdate();
+        }
+        sequenceConnection.commit();
+        return next;
+    }
+}
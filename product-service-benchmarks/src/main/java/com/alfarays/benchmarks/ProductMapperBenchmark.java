@@ -0,0 +1,48 @@
+package com.alfarays.benchmarks;
+
+import com.alfarays.entity.Product;
+import com.alfarays.mapper.ProductMapper;
+import com.alfarays.model.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response mapping, run for every product a read endpoint returns or a cache refill loads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMapperBenchmark {
+
+    @Param({"0", "5"})
+    public int images;
+
+    @Param({"5", "30"})
+    public int specifications;
+
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        product = Fixtures.product(42L, images, specifications);
+    }
+
+    @Benchmark
+    public ProductResponse toResponse() {
+        return ProductMapper.toResponse(product);
+    }
+}
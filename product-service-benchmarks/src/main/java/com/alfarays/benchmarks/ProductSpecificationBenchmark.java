@@ -0,0 +1,87 @@
+package com.alfarays.benchmarks;
+
+import com.alfarays.entity.Category;
+import com.alfarays.entity.Image;
+import com.alfarays.entity.ImageVariant;
+import com.alfarays.entity.Product;
+import com.alfarays.specification.ProductSpecification;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Criteria construction for /products/filter: the query root plus the predicate tree built from
+ * ProductSpecification, against the service's real mappings and the MySQL dialect. No database is
+ * involved; Hibernate boots with JDBC metadata access off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSpecificationBenchmark {
+
+    private SessionFactory sessionFactory;
+    private CriteriaBuilder criteriaBuilder;
+    private Map<String, Set<String>> specification;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Product.class)
+                .addAnnotatedClass(Category.class)
+                .addAnnotatedClass(Image.class)
+                .addAnnotatedClass(ImageVariant.class)
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.MySQLDialect")
+                .setProperty("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .setProperty("hibernate.hbm2ddl.auto", "none")
+                .buildSessionFactory();
+        criteriaBuilder = sessionFactory.getCriteriaBuilder();
+
+        specification = new LinkedHashMap<>();
+        specification.put("color", Set.of("black", "blue"));
+        specification.put("storage", Set.of("256GB"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate byName() {
+        return build(ProductSpecification.filter("galaxy", null, null));
+    }
+
+    @Benchmark
+    public Predicate allFilters() {
+        return build(ProductSpecification.filter("galaxy", 3L, "electro", specification));
+    }
+
+    private Predicate build(Specification<Product> filter) {
+        CriteriaQuery<Product> query = criteriaBuilder.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        return filter.toPredicate(root, query, criteriaBuilder);
+    }
+}
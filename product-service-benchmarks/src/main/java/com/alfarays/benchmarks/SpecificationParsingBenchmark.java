@@ -0,0 +1,76 @@
+package com.alfarays.benchmarks;
+
+import com.alfarays.configuration.SpecificationProperties;
+import com.alfarays.mapper.SpecificationParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of turning the specification form field into a map.
+ *
+ * newObjectMapper is what create and update used to do: a fresh ObjectMapper per request, so every
+ * call rebuilds its deserializer and type caches. sharedObjectMapper binds through one long-lived
+ * reader, as patch did. streamingParser is SpecificationParser, which the resource uses now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpecificationParsingBenchmark {
+
+    private static final TypeReference<Map<String, String>> SPECIFICATION = new TypeReference<>() {
+    };
+
+    @Param({"3", "30"})
+    public int entries;
+
+    private String json;
+    private ObjectReader sharedReader;
+    private SpecificationParser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, Object> specification = new LinkedHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            specification.put("key" + i, i % 3 == 0 ? i : "value " + i);
+        }
+        json = new ObjectMapper().writeValueAsString(specification);
+
+        sharedReader = new ObjectMapper().readerFor(SPECIFICATION);
+        parser = new SpecificationParser(new SpecificationProperties());
+    }
+
+    @Benchmark
+    public Map<String, String> newObjectMapper() throws IOException {
+        return new ObjectMapper().readValue(json, SPECIFICATION);
+    }
+
+    @Benchmark
+    public Map<String, String> sharedObjectMapper() throws IOException {
+        return sharedReader.readValue(json);
+    }
+
+    @Benchmark
+    public Map<String, String> streamingParser() throws IOException {
+        return parser.parse(json);
+    }
+}
@@ -0,0 +1,42 @@
+package com.alfarays.bulk;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Wire formats accepted by the bulk import and produced by the bulk export
+ */
+public enum BulkFormat {
+
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    private final MediaType mediaType;
+
+    BulkFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public static BulkFormat fromMediaType(String contentType) {
+        if (contentType != null) {
+            MediaType type = MediaType.parseMediaType(contentType);
+            for (BulkFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(type)) return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported bulk format: " + contentType);
+    }
+
+    public static BulkFormat fromName(String name) {
+        for (BulkFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) return format;
+        }
+        throw new IllegalArgumentException("Unsupported bulk format: " + name);
+    }
+}
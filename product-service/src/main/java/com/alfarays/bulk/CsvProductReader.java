@@ -0,0 +1,139 @@
+package com.alfarays.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV with a header row. {@code name} and {@code categoryId} are required columns; every
+ * other column is a specification key, and an empty cell leaves that key out. The {@code id} and
+ * {@code category} columns written by the CSV export are ignored, so an export imports back as is.
+ */
+public class CsvProductReader implements ProductRecordReader {
+
+    static final String NAME = "name";
+    static final String CATEGORY_ID = "categoryId";
+    static final String ID = "id";
+    static final String CATEGORY = "category";
+
+    private final BufferedReader reader;
+    private List<String> header;
+    private int nameColumn;
+    private int categoryColumn;
+    private long record;
+    private boolean finished;
+
+    public CsvProductReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ProductRecord next() throws IOException {
+        if (header == null) readHeader();
+        if (finished) return null;
+
+        List<String> cells;
+        do {
+            try {
+                cells = readRecord();
+            } catch (IllegalArgumentException e) {
+                // the rest of the input cannot be split into records reliably any more
+                finished = true;
+                return ProductRecord.invalid(record + 1, e.getMessage());
+            }
+            if (cells == null) return null;
+            record++;
+        } while (cells.size() == 1 && cells.get(0).isEmpty());
+
+        if (cells.size() != header.size()) {
+            return ProductRecord.invalid(record, "Expected " + header.size() + " columns but found " + cells.size());
+        }
+
+        Long categoryId = null;
+        String category = cells.get(categoryColumn).trim();
+        if (!category.isEmpty()) {
+            try {
+                categoryId = Long.parseLong(category);
+            } catch (NumberFormatException e) {
+                return ProductRecord.invalid(record, "categoryId must be a number");
+            }
+        }
+
+        Map<String, String> specification = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i);
+            if (i == nameColumn || i == categoryColumn || column.equals(ID) || column.equals(CATEGORY)) continue;
+            if (!cells.get(i).isEmpty()) specification.put(column, cells.get(i));
+        }
+
+        return new ProductRecord(record, cells.get(nameColumn), categoryId, specification, null);
+    }
+
+    private void readHeader() throws IOException {
+        List<String> cells = readRecord();
+        if (cells == null) throw new IllegalArgumentException("CSV input is empty");
+
+        // a UTF-8 byte order mark from spreadsheet exports would otherwise end up in the first column name
+        if (!cells.isEmpty() && cells.get(0).startsWith("\uFEFF")) cells.set(0, cells.get(0).substring(1));
+
+        header = cells.stream().map(String::trim).toList();
+        nameColumn = header.indexOf(NAME);
+        categoryColumn = header.indexOf(CATEGORY_ID);
+        if (nameColumn < 0 || categoryColumn < 0) {
+            throw new IllegalArgumentException("CSV header must contain the columns " + NAME + " and " + CATEGORY_ID);
+        }
+    }
+
+    /**
+     * Reads one record; quoted cells may contain separators, doubled quotes and line breaks
+     */
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) throw new IllegalArgumentException("Unterminated quoted cell in CSV record " + (record + 1));
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        cell.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    cell.append((char) c);
+                }
+            } else if (c == '"' && cell.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') reader.reset();
+                break;
+            } else {
+                cell.append((char) c);
+            }
+            c = reader.read();
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,57 @@
+package com.alfarays.bulk;
+
+import com.alfarays.model.ProductResponse;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes products as RFC 4180 CSV: id, name, categoryId, category, then one column per specification
+ * key. The key set is fixed up front so every row has the same shape.
+ */
+public class CsvProductWriter {
+
+    private final Writer writer;
+    private final List<String> specificationKeys;
+
+    public CsvProductWriter(Writer writer, List<String> specificationKeys) {
+        this.writer = writer;
+        this.specificationKeys = specificationKeys;
+    }
+
+    public void writeHeader() throws IOException {
+        writer.write(CsvProductReader.ID);
+        writeCell(CsvProductReader.NAME);
+        writeCell(CsvProductReader.CATEGORY_ID);
+        writeCell(CsvProductReader.CATEGORY);
+        for (String key : specificationKeys) writeCell(key);
+        writer.write("\r\n");
+    }
+
+    public void write(ProductResponse product) throws IOException {
+        writer.write(String.valueOf(product.getId()));
+        writeCell(product.getName());
+        writeCell(product.getCategory() != null ? String.valueOf(product.getCategory().getId()) : null);
+        writeCell(product.getCategory() != null ? product.getCategory().getName() : null);
+        for (String key : specificationKeys) {
+            writeCell(product.getSpecification() != null ? product.getSpecification().get(key) : null);
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCell(String value) throws IOException {
+        writer.write(',');
+        if (value == null || value.isEmpty()) return;
+
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
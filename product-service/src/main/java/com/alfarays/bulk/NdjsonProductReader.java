@@ -0,0 +1,76 @@
+package com.alfarays.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One JSON object per line: {"name": "...", "categoryId": 3, "specification": {"color": "red"}}.
+ * Lines written by the NDJSON export (category as an object) are read back as well.
+ */
+public class NdjsonProductReader implements ProductRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader json;
+    private long line;
+
+    public NdjsonProductReader(BufferedReader reader, ObjectReader json) {
+        this.reader = reader;
+        this.json = json;
+    }
+
+    @Override
+    public ProductRecord next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) return null;
+            line++;
+        } while (text.isBlank());
+
+        JsonNode node;
+        try {
+            node = json.readTree(text);
+        } catch (JsonProcessingException e) {
+            return ProductRecord.invalid(line, "Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) return ProductRecord.invalid(line, "Expected a JSON object");
+
+        JsonNode categoryId = node.hasNonNull("categoryId") ? node.get("categoryId") : node.path("category").path("id");
+        boolean hasCategory = !categoryId.isMissingNode() && !categoryId.isNull();
+        if (hasCategory && !categoryId.isIntegralNumber() && !(categoryId.isTextual() && categoryId.asText().matches("\\d{1,18}"))) {
+            return ProductRecord.invalid(line, "categoryId must be a number");
+        }
+
+        Map<String, String> specification = new LinkedHashMap<>();
+        JsonNode spec = node.path("specification");
+        if (!spec.isMissingNode() && !spec.isNull()) {
+            if (!spec.isObject()) return ProductRecord.invalid(line, "specification must be an object");
+            for (Map.Entry<String, JsonNode> entry : spec.properties()) {
+                JsonNode value = entry.getValue();
+                if (value.isContainerNode()) {
+                    return ProductRecord.invalid(line, "specification." + entry.getKey() + " must be a scalar");
+                }
+                if (!value.isNull()) specification.put(entry.getKey(), value.asText());
+            }
+        }
+
+        return new ProductRecord(
+                line,
+                node.hasNonNull("name") ? node.get("name").asText() : null,
+                hasCategory ? categoryId.asLong() : null,
+                specification,
+                null
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
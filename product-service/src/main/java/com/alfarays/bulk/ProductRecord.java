@@ -0,0 +1,23 @@
+package com.alfarays.bulk;
+
+import java.util.Map;
+
+/**
+ * One product read from an import stream, or the reason its row could not be read
+ *
+ * @param line          line (NDJSON) or record (CSV) number in the input, starting at 1
+ * @param name          product name
+ * @param categoryId    category the product belongs to
+ * @param specification specification key/values, never null for a readable row
+ * @param error         why the row is unusable, or null
+ */
+public record ProductRecord(long line, String name, Long categoryId, Map<String, String> specification, String error) {
+
+    public static ProductRecord invalid(long line, String error) {
+        return new ProductRecord(line, null, null, Map.of(), error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.alfarays.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pulls products off an import stream one at a time, so an import never holds more than a batch in
+ * memory. A malformed row comes back as an invalid record and reading carries on with the next one.
+ */
+public interface ProductRecordReader extends Closeable {
+
+    /**
+     * @return the next row, or null at the end of the input
+     */
+    ProductRecord next() throws IOException;
+}
@@ -0,0 +1,74 @@
+package com.alfarays.cache;
+
+import com.alfarays.configuration.CacheConfiguration;
+import com.alfarays.event.CategoryChangedEvent;
+import com.alfarays.event.ChangeType;
+import com.alfarays.event.ProductChangedEvent;
+import com.alfarays.model.ProductResponse;
+import com.alfarays.model.ProductVersion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Writes product and category changes through to the local caches once the transaction has committed,
+ * so a rolled back write never leaves an entry behind. Changes made on other replicas arrive here
+ * through ProductFunctions.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Events from different replicas arrive in no particular order, so an upsert only replaces a cached
+     * entry that is older than it
+     */
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        Cache products = cacheManager.getCache(CacheConfiguration.PRODUCTS);
+        if (products == null) return;
+
+        if (event.type() == ChangeType.DELETED) {
+            products.evict(event.productId());
+        } else {
+            synchronized (this) {
+                ProductResponse cached = products.get(event.productId(), ProductResponse.class);
+                if (cached != null && !ProductVersion.of(cached).isOlderThan(ProductVersion.of(event.product()))) {
+                    log.debug("Kept cached product id: {} over an event that is not newer", event.productId());
+                    return;
+                }
+                products.put(event.productId(), event.product());
+            }
+        }
+        log.debug("Product cache updated for id: {} ({})", event.productId(), event.type());
+    }
+
+    /**
+     * Cached products embed the category name, so any category write also drops the product cache
+     */
+    @TransactionalEventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        Cache categories = cacheManager.getCache(CacheConfiguration.CATEGORIES);
+        if (categories != null) {
+            if (event.type() == ChangeType.DELETED) {
+                categories.evict(event.categoryId());
+            } else {
+                categories.put(event.categoryId(), event.category());
+            }
+        }
+        clear(CacheConfiguration.CATEGORY_LIST);
+        clear(CacheConfiguration.PRODUCTS);
+        log.debug("Category caches updated for id: {} ({})", event.categoryId(), event.type());
+    }
+
+    private void clear(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) cache.clear();
+    }
+}
@@ -0,0 +1,29 @@
+package com.alfarays.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Local Caffeine caches (bounded, W-TinyLFU eviction) in front of product and category reads.
+ *
+ * Each cache gets its own size/TTL from {@link CatalogCacheProperties}; stats recording is always on
+ * so actuator binds hit/miss/eviction meters (cache.gets, cache.evictions, cache.size) to Prometheus.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORY_LIST = "category-list";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> catalogCacheCustomizer(CatalogCacheProperties properties) {
+        return cacheManager -> properties.getSpecs().forEach((name, spec) ->
+                cacheManager.registerCustomCache(name, Caffeine.from(spec).recordStats().build()));
+    }
+}
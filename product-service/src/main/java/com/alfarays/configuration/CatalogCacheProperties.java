@@ -0,0 +1,24 @@
+package com.alfarays.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caffeine spec per catalog cache, e.g. {@code products: maximumSize=10000,expireAfterWrite=10m}
+ */
+@Configuration
+@ConfigurationProperties(prefix = "catalog.cache")
+@Getter
+@Setter
+public class CatalogCacheProperties {
+    private Map<String, String> specs = new LinkedHashMap<>(Map.of(
+            CacheConfiguration.PRODUCTS, "maximumSize=10000,expireAfterWrite=10m",
+            CacheConfiguration.CATEGORIES, "maximumSize=1000,expireAfterWrite=30m",
+            CacheConfiguration.CATEGORY_LIST, "maximumSize=1,expireAfterWrite=30m"
+    ));
+}
@@ -0,0 +1,34 @@
+package com.alfarays.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+/**
+ * Cache-Control sent with ETag-validated product reads. A zero max-age yields "no-cache":
+ * clients and the gateway keep the body but revalidate every time, which costs a 304 at most.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "product.http-cache")
+@Getter
+@Setter
+public class HttpCacheProperties {
+    private Duration maxAge = Duration.ZERO;
+    private Duration staleWhileRevalidate = Duration.ZERO;
+    private boolean shared = true;
+
+    public CacheControl toCacheControl() {
+        if (maxAge.isZero()) return CacheControl.noCache();
+
+        CacheControl cacheControl = CacheControl.maxAge(maxAge);
+        cacheControl = shared ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+        if (!staleWhileRevalidate.isZero()) {
+            cacheControl = cacheControl.staleWhileRevalidate(staleWhileRevalidate);
+        }
+        return cacheControl;
+    }
+}
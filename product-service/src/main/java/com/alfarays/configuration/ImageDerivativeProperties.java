@@ -0,0 +1,28 @@
+package com.alfarays.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Image renditions generated in the background after upload: variant name -> longest edge in pixels
+ */
+@Configuration
+@ConfigurationProperties(prefix = "image.derivatives")
+@Getter
+@Setter
+public class ImageDerivativeProperties {
+    private boolean enabled = true;
+    private Map<String, Integer> sizes = new LinkedHashMap<>(Map.of(
+            "thumbnail", 200,
+            "medium", 640,
+            "large", 1280
+    ));
+    private float quality = 0.8f;
+    private int workers = 2;
+    private int queueCapacity = 200;
+}
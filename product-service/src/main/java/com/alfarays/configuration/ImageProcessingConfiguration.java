@@ -0,0 +1,47 @@
+package com.alfarays.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ImageProcessingConfiguration {
+
+    public static final String DERIVATIVE_EXECUTOR = "imageDerivativeExecutor";
+    public static final String STORAGE_EXECUTOR = "imageStorageExecutor";
+
+    /**
+     * Disk I/O for the images of a product request runs here in parallel. Bounded, and a full queue makes
+     * the submitting request thread do the work itself, so a large upload slows down rather than fails
+     */
+    @Bean(name = STORAGE_EXECUTOR)
+    public ThreadPoolTaskExecutor imageStorageExecutor(StorageProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkers());
+        executor.setMaxPoolSize(properties.getWorkers());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("image-storage-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Fixed pool with a bounded queue: decoding is CPU and memory heavy, so a burst of uploads queues up
+     * (and past the limit is rejected) instead of starving request threads or the heap
+     */
+    @Bean(name = DERIVATIVE_EXECUTOR)
+    public ThreadPoolTaskExecutor imageDerivativeExecutor(ImageDerivativeProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkers());
+        executor.setMaxPoolSize(properties.getWorkers());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("image-derivative-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
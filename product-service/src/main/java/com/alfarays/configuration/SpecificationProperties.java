@@ -0,0 +1,33 @@
+package com.alfarays.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product specification JSON: limits on submitted documents, keys that get an indexed generated
+ * column on MySQL, and the backfill from the old product_specifications table
+ */
+@Configuration
+@ConfigurationProperties(prefix = "product.specification")
+@Getter
+@Setter
+public class SpecificationProperties {
+    // Hot filter keys; letters, digits and _ only, each becomes column spec_<key>
+    private List<String> indexedKeys = new ArrayList<>();
+
+    // Limits on the specification form field, enforced while it is parsed
+    private int maxEntries = 100;
+    private int maxKeyLength = 255;
+    // spec_<key> generated columns hold up to 768 characters
+    private int maxValueLength = 768;
+    private int maxDocumentLength = 64 * 1024;
+
+    private boolean migrateLegacy = true;
+    // Product ids per backfill statement
+    private int migrationBatchSize = 1000;
+}
@@ -0,0 +1,63 @@
+package com.alfarays.configuration;
+
+import com.alfarays.storage.ImageStorage;
+import com.alfarays.storage.LocalFileSystemImageStorage;
+import com.alfarays.storage.S3ImageStorage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Picks the image storage backend from storage.type
+ */
+@Configuration
+public class StorageConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "local", matchIfMissing = true)
+    public ImageStorage localImageStorage(StorageProperties properties) {
+        return new LocalFileSystemImageStorage(Paths.get(properties.getUploadDir()));
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "s3")
+    public S3Client imageStorageS3Client(StorageProperties properties) {
+        StorageProperties.S3 s3 = properties.getS3();
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(s3.getRegion()))
+                .forcePathStyle(s3.isPathStyleAccess());
+
+        if (s3.getEndpoint() != null && !s3.getEndpoint().isBlank()) {
+            builder.endpointOverride(URI.create(s3.getEndpoint()));
+        }
+        if (s3.getAccessKey() != null && !s3.getAccessKey().isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(s3.getAccessKey(), s3.getSecretKey())));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "s3")
+    public ImageStorage s3ImageStorage(S3Client imageStorageS3Client, StorageProperties properties) {
+        if (properties.getS3().getBucket() == null || properties.getS3().getBucket().isBlank()) {
+            throw new IllegalStateException("storage.s3.bucket must be set when storage.type is s3");
+        }
+        // uploads are spooled to local disk first so they can be hashed before the PUT
+        Path tempDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "product-images");
+        return new S3ImageStorage(imageStorageS3Client, properties.getS3().getBucket(),
+                properties.getS3().getPrefix(), tempDirectory);
+    }
+}
@@ -5,10 +5,39 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "storage")
 @Getter
 @Setter
 public class StorageProperties {
+    // Image backend: local (files below uploadDir) or s3
+    private String type = "local";
+
     private String uploadDir = "classpath:/resources/images";
+
+    // Pool writing and removing image files, shared by all requests
+    private int workers = 4;
+    private int queueCapacity = 64;
+
+    // How long a pin on shared storage holds after its replica stopped without releasing it;
+    // must outlast the longest upload transaction
+    private Duration pinLease = Duration.ofHours(1);
+
+    private S3 s3 = new S3();
+
+    @Getter
+    @Setter
+    public static class S3 {
+        private String bucket;
+        private String prefix = "";
+        private String region = "us-east-1";
+        // Set for S3-compatible stand-ins such as MinIO or LocalStack, together with pathStyleAccess
+        private String endpoint;
+        private boolean pathStyleAccess;
+        // Static credentials; the default AWS provider chain is used when unset
+        private String accessKey;
+        private String secretKey;
+    }
 }
@@ -0,0 +1,30 @@
+package com.alfarays.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Single-row counter of committed catalog writes, the source of the listing ETag
+ */
+@Entity
+@Table(name = "catalog_revision")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogRevision {
+
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long revision;
+}
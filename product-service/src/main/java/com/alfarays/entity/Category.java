@@ -16,9 +16,14 @@ public class Category extends BaseEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_seq")
-    @SequenceGenerator(name = "category_seq", sequenceName = "category_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "category_seq", sequenceName = "category_sequence", allocationSize = 50)
     private Long id;
 
     private String name;
 
+    // Cached product representations embed the category name, so their ETags include this version
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
 }
\ No newline at end of file
@@ -5,9 +5,16 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "images")
+@Table(
+        name = "images",
+        indexes = @Index(name = "idx_images_content_hash", columnList = "contentHash")
+)
 @Getter
 @Setter
 @AllArgsConstructor
@@ -16,7 +23,7 @@ public class Image extends BaseEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "image_seq")
-    @SequenceGenerator(name = "image_seq", sequenceName = "image_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "image_seq", sequenceName = "image_sequence", allocationSize = 50)
     private Long id;
 
     private String url;
@@ -28,6 +35,19 @@ public class Image extends BaseEntity {
     private String contentType;
     private String FileExtension;
 
+    // Lowercase hex SHA-256 of the stored bytes
+    @Column(length = 64)
+    private String contentHash;
+
+    // Downscaled renditions, filled in asynchronously after upload
+    @ElementCollection
+    @BatchSize(size = 100)
+    @CollectionTable(
+            name = "image_variants",
+            joinColumns = @JoinColumn(name = "image_id")
+    )
+    private List<ImageVariant> variants = new ArrayList<>();
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
@@ -0,0 +1,31 @@
+package com.alfarays.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A derived rendition of an image (thumbnail, medium, ...) generated after upload
+ */
+@Embeddable
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageVariant {
+
+    @Column(name = "variant", nullable = false)
+    private String name;
+
+    private String path;
+    private Integer width;
+    private Integer height;
+    private Long size;
+    private String contentType;
+
+    @Column(length = 64)
+    private String contentHash;
+}
@@ -5,6 +5,10 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -12,28 +16,47 @@ import java.util.Set;
 
 @Entity
 @Table(name = "products")
+@NamedEntityGraph(
+        name = Product.GRAPH_DETAILS,
+        attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("images")
+        }
+)
+@NamedEntityGraph(
+        name = Product.GRAPH_SUMMARY,
+        attributeNodes = @NamedAttributeNode("category")
+)
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class Product extends BaseEntity {
 
+    // Fetch plans: DETAILS joins everything (single product or unpaged list), SUMMARY joins the
+    // category only and leaves images to @BatchSize so LIMIT stays in SQL
+    public static final String GRAPH_DETAILS = "Product.details";
+    public static final String GRAPH_SUMMARY = "Product.summary";
+
+    // Ids come from the sequence in blocks of 50 (pooled-lo, see hibernate.id.optimizer.pooled.preferred),
+    // so a batch of inserts costs one sequence round trip instead of one per row
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
-    @SequenceGenerator(name = "product_seq", sequenceName = "product_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_sequence", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String name;
 
-    // Map<String, String> specification stored in a separate table
-    @ElementCollection
-    @CollectionTable(
-            name = "product_specifications",
-            joinColumns = @JoinColumn(name = "product_id")
-    )
-    @MapKeyColumn(name = "spec_key")
-    @Column(name = "spec_value")
+    // Optimistic lock and HTTP validator (ETag); existing rows start at 0
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Specification as one JSON document on the product row: read with the product, written as one
+    // column. Hot keys get indexed generated columns, see SpecificationSchema
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "specification")
     private Map<String, String> specification = new HashMap<>();
 
     // Category mapping: many products -> 1 category
@@ -48,6 +71,7 @@ public class Product extends BaseEntity {
             orphanRemoval = true,
             fetch = FetchType.LAZY
     )
+    @BatchSize(size = 100)
     private Set<Image> images = new HashSet<>();
 
 }
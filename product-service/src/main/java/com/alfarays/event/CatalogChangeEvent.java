@@ -0,0 +1,45 @@
+package com.alfarays.event;
+
+import com.alfarays.model.CategoryResponse;
+import com.alfarays.model.ProductResponse;
+
+import java.time.Instant;
+
+/**
+ * Wire format of the catalog-changed topic, shared by every product-service replica.
+ * Upserts carry the new state so receivers can refresh instead of just evicting.
+ *
+ * @param entity     product or category
+ * @param id         id of the changed entity
+ * @param type       what happened to it
+ * @param origin     instance that made the change; it has already applied it locally
+ * @param occurredAt commit time on the origin
+ * @param product    product state for product upserts, otherwise null
+ * @param category   category state for category upserts, otherwise null
+ */
+public record CatalogChangeEvent(
+        CatalogEntity entity,
+        Long id,
+        ChangeType type,
+        String origin,
+        Instant occurredAt,
+        ProductResponse product,
+        CategoryResponse category
+) {
+
+    public static CatalogChangeEvent of(ProductChangedEvent event, String origin) {
+        return new CatalogChangeEvent(CatalogEntity.PRODUCT, event.productId(), event.type(), origin, Instant.now(), event.product(), null);
+    }
+
+    public static CatalogChangeEvent of(CategoryChangedEvent event, String origin) {
+        return new CatalogChangeEvent(CatalogEntity.CATEGORY, event.categoryId(), event.type(), origin, Instant.now(), null, event.category());
+    }
+
+    public ProductChangedEvent toProductEvent() {
+        return new ProductChangedEvent(id, type, product);
+    }
+
+    public CategoryChangedEvent toCategoryEvent() {
+        return new CategoryChangedEvent(id, type, category);
+    }
+}
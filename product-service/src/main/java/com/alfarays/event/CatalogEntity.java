@@ -0,0 +1,8 @@
+package com.alfarays.event;
+
+public enum CatalogEntity {
+
+    PRODUCT,
+    CATEGORY
+
+}
@@ -0,0 +1,22 @@
+package com.alfarays.event;
+
+import com.alfarays.model.CategoryResponse;
+
+/**
+ * Published by CategoryService whenever a category is written.
+ * Listeners that keep derived state (caches) react after the transaction commits.
+ *
+ * @param categoryId id of the changed category
+ * @param type       what happened to it
+ * @param category   state after the change, null for deletions
+ */
+public record CategoryChangedEvent(Long categoryId, ChangeType type, CategoryResponse category) {
+
+    public static CategoryChangedEvent upserted(CategoryResponse category) {
+        return new CategoryChangedEvent(category.getId(), ChangeType.UPSERTED, category);
+    }
+
+    public static CategoryChangedEvent deleted(Long categoryId) {
+        return new CategoryChangedEvent(categoryId, ChangeType.DELETED, null);
+    }
+}
@@ -0,0 +1,9 @@
+package com.alfarays.event;
+
+/**
+ * Published by ImageService when an upload has been written; derivative generation starts after commit
+ *
+ * @param imageId id of the stored image
+ */
+public record ImageStoredEvent(Long imageId) {
+}
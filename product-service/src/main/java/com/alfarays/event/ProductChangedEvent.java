@@ -0,0 +1,22 @@
+package com.alfarays.event;
+
+import com.alfarays.model.ProductResponse;
+
+/**
+ * Published by ProductService whenever a product is written.
+ * Listeners that keep derived state (search index, caches) react after the transaction commits.
+ *
+ * @param productId id of the changed product
+ * @param type      what happened to it
+ * @param product   state after the change, null for deletions
+ */
+public record ProductChangedEvent(Long productId, ChangeType type, ProductResponse product) {
+
+    public static ProductChangedEvent upserted(ProductResponse product) {
+        return new ProductChangedEvent(product.getId(), ChangeType.UPSERTED, product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, ChangeType.DELETED, null);
+    }
+}
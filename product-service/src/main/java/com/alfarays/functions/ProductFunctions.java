@@ -0,0 +1,39 @@
+package com.alfarays.functions;
+
+import com.alfarays.cache.CatalogCacheInvalidator;
+import com.alfarays.event.CatalogChangeEvent;
+import com.alfarays.event.CatalogEntity;
+import com.alfarays.messaging.CatalogEventPublisher;
+import com.alfarays.search.CatalogIndexer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Consumer;
+
+@Slf4j
+@Configuration
+public class ProductFunctions {
+
+    /**
+     * Applies catalog changes made on other replicas to this instance's caches and indexes.
+     * Bound without a consumer group, so every replica gets its own copy of each event.
+     */
+    @Bean
+    public Consumer<CatalogChangeEvent> refreshCatalog(CatalogEventPublisher publisher,
+                                                       CatalogCacheInvalidator cacheInvalidator,
+                                                       CatalogIndexer catalogIndexer) {
+        return event -> {
+            if (publisher.isLocal(event)) return;
+
+            log.debug("Applying remote catalog change for {} id: {} ({}) from {}", event.entity(), event.id(), event.type(), event.origin());
+            if (event.entity() == CatalogEntity.PRODUCT) {
+                cacheInvalidator.onProductChanged(event.toProductEvent());
+                catalogIndexer.onProductChanged(event.toProductEvent());
+            } else {
+                cacheInvalidator.onCategoryChanged(event.toCategoryEvent());
+                catalogIndexer.onCategoryChanged(event.toCategoryEvent());
+            }
+        };
+    }
+}
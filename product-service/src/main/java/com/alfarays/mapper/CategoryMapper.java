@@ -11,6 +11,7 @@ public final class CategoryMapper {
         CategoryResponse response = new CategoryResponse();
         response.setId(category.getId());
         response.setName(category.getName());
+        response.setVersion(category.getVersion());
         return response;
     }
 }
@@ -0,0 +1,33 @@
+package com.alfarays.mapper;
+
+import com.alfarays.entity.Image;
+import com.alfarays.model.ImageResponse;
+
+public final class ImageMapper {
+
+    private static final String URL_PREFIX = "/images/";
+
+    private ImageMapper() {
+    }
+
+    public static ImageResponse toResponse(Image image) {
+        if (image == null) return null;
+
+        ImageResponse response = new ImageResponse();
+        response.setId(image.getId());
+        response.setPath(url(image.getId()));
+        response.setName(image.getName());
+        response.setOriginalName(image.getOriginalName());
+        response.setContentType(image.getContentType());
+        response.setSize(image.getSize());
+        response.setContentHash(image.getContentHash());
+        return response;
+    }
+
+    /**
+     * Path of the image download endpoint, relative to the service base path; never the storage location
+     */
+    public static String url(Long imageId) {
+        return URL_PREFIX + imageId;
+    }
+}
@@ -1,12 +1,19 @@
 package com.alfarays.mapper;
 
 import com.alfarays.entity.Category;
-import com.alfarays.entity.Image;
 import com.alfarays.entity.Product;
 import com.alfarays.model.CategoryResponse;
 import com.alfarays.model.ImageResponse;
 import com.alfarays.model.ProductResponse;
+import com.alfarays.repository.ProductRow;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public final class ProductMapper {
@@ -20,7 +27,11 @@ public final class ProductMapper {
         ProductResponse response = new ProductResponse();
         response.setId(product.getId());
         response.setName(product.getName());
-        response.setSpecification(product.getSpecification());
+        response.setVersion(product.getVersion());
+        // copy out of the Hibernate collection so cached responses don't pin the entity and its session
+        if (product.getSpecification() != null) {
+            response.setSpecification(new HashMap<>(product.getSpecification()));
+        }
 
         if (product.getCategory() != null) {
             response.setCategory(mapCategory(product.getCategory()));
@@ -29,7 +40,7 @@ public final class ProductMapper {
         if (product.getImages() != null && !product.getImages().isEmpty()) {
             response.setImages(
                     product.getImages().stream()
-                            .map(ProductMapper::mapImage)
+                            .map(ImageMapper::toResponse)
                             .collect(Collectors.toList())
             );
         }
@@ -37,25 +48,57 @@ public final class ProductMapper {
         return response;
     }
 
+    /**
+     * Folds the joined projection rows (product x image) back into response trees,
+     * keeping the row order of the query
+     */
+    public static List<ProductResponse> toResponses(List<ProductRow> rows) {
+        Map<Long, ProductResponse> products = new LinkedHashMap<>();
+        Map<Long, Set<Long>> seenImages = new HashMap<>();
+
+        for (ProductRow row : rows) {
+            ProductResponse response = products.computeIfAbsent(row.productId(), id -> {
+                ProductResponse created = new ProductResponse();
+                created.setId(id);
+                created.setName(row.productName());
+                created.setVersion(row.productVersion());
+                created.setSpecification(row.specification() != null ? new HashMap<>(row.specification()) : new HashMap<>());
+                if (row.categoryId() != null) {
+                    created.setCategory(new CategoryResponse(row.categoryId(), row.categoryName(), row.categoryVersion()));
+                }
+                return created;
+            });
+
+            if (row.imageId() != null && seenImages.computeIfAbsent(row.productId(), id -> new HashSet<>()).add(row.imageId())) {
+                if (response.getImages() == null) {
+                    response.setImages(new ArrayList<>());
+                }
+                response.getImages().add(mapImage(row));
+            }
+        }
+
+        return new ArrayList<>(products.values());
+    }
+
     private static CategoryResponse mapCategory(Category category) {
         if (category == null) return null;
 
         CategoryResponse response = new CategoryResponse();
         response.setId(category.getId());
         response.setName(category.getName());
+        response.setVersion(category.getVersion());
         return response;
     }
 
-    private static ImageResponse mapImage(Image image) {
-        if (image == null) return null;
-
+    private static ImageResponse mapImage(ProductRow row) {
         ImageResponse response = new ImageResponse();
-        response.setId(image.getId());
-        response.setPath(image.getUrl());
-        response.setName(image.getName());
-        response.setOriginalName(image.getOriginalName());
-        response.setContentType(image.getContentType());
-        response.setSize(image.getSize());
+        response.setId(row.imageId());
+        response.setPath(ImageMapper.url(row.imageId()));
+        response.setName(row.imageName());
+        response.setOriginalName(row.imageOriginalName());
+        response.setContentType(row.imageContentType());
+        response.setSize(row.imageSize());
+        response.setContentHash(row.imageContentHash());
         return response;
     }
 
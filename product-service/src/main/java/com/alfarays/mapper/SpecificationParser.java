@@ -0,0 +1,76 @@
+package com.alfarays.mapper;
+
+import com.alfarays.configuration.SpecificationProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses the specification form field ({"color": "blue", "size": "L"}) into a key/value map.
+ *
+ * Walks the token stream of one shared, thread-safe JsonFactory instead of binding through an
+ * ObjectMapper: no deserializer lookup or type resolution per call, and nothing but the map is
+ * allocated. The document length is checked up front; key and value lengths and nesting are capped
+ * by the factory's read constraints, so an oversized entry fails while it is tokenized. Numbers and booleans are kept as their text and null values are kept, since
+ * PATCH uses them to remove a key.
+ */
+@Component
+public class SpecificationParser {
+
+    private final JsonFactory factory;
+    private final int maxEntries;
+    private final int maxDocumentLength;
+
+    public SpecificationParser(SpecificationProperties properties) {
+        this.factory = JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder()
+                        .maxDocumentLength(properties.getMaxDocumentLength())
+                        .maxNameLength(properties.getMaxKeyLength())
+                        .maxStringLength(properties.getMaxValueLength())
+                        .maxNestingDepth(1)
+                        .build())
+                .build();
+        this.maxEntries = properties.getMaxEntries();
+        this.maxDocumentLength = properties.getMaxDocumentLength();
+    }
+
+    /**
+     * @throws com.fasterxml.jackson.core.JsonProcessingException on malformed JSON or an exceeded length
+     * @throws IllegalArgumentException                          on anything but a flat object of scalars
+     */
+    public Map<String, String> parse(String json) throws IOException {
+        if (json.length() > maxDocumentLength) {
+            throw new IllegalArgumentException("Specification longer than " + maxDocumentLength + " characters");
+        }
+
+        try (JsonParser parser = factory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Specification must be a JSON object");
+            }
+
+            Map<String, String> specification = new HashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == null || value.isStructStart()) {
+                    throw new IllegalArgumentException("Specification " + key + " must be a string, number or boolean");
+                }
+                specification.put(key, value == JsonToken.VALUE_NULL ? null : parser.getText());
+                if (specification.size() > maxEntries) {
+                    throw new IllegalArgumentException("Specification has more than " + maxEntries + " entries");
+                }
+            }
+
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new IllegalArgumentException("Specification must be a single JSON object");
+            }
+            return specification;
+        }
+    }
+}
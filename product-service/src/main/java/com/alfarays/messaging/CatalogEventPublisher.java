@@ -0,0 +1,53 @@
+package com.alfarays.messaging;
+
+import com.alfarays.event.CatalogChangeEvent;
+import com.alfarays.event.CategoryChangedEvent;
+import com.alfarays.event.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * Fans committed product/category changes out to the other replicas over the catalog-changed topic.
+ *
+ * Each instance tags its events with a random origin id so that it can skip its own messages
+ * when they come back through the broadcast subscription.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogEventPublisher {
+
+    public static final String BINDING = "catalogChanged-out-0";
+
+    private final String origin = UUID.randomUUID().toString();
+    private final StreamBridge streamBridge;
+
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        send(CatalogChangeEvent.of(event, origin));
+    }
+
+    @TransactionalEventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        send(CatalogChangeEvent.of(event, origin));
+    }
+
+    public boolean isLocal(CatalogChangeEvent event) {
+        return origin.equals(event.origin());
+    }
+
+    private void send(CatalogChangeEvent event) {
+        // the write is already committed; a broker hiccup must not surface as a failed request
+        try {
+            boolean sent = streamBridge.send(BINDING, event);
+            if (!sent) log.warn("Catalog change not published for {} id: {} ({})", event.entity(), event.id(), event.type());
+        } catch (Exception e) {
+            log.error("Failed to publish catalog change for {} id: {} ({})", event.entity(), event.id(), event.type(), e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.alfarays.model;
+
+/**
+ * Version of the whole product listing: the catalog revision, bumped in the same transaction as every
+ * product or category write, so an unchanged revision means an unchanged listing.
+ */
+public record CatalogVersion(Long revision) {
+
+    /**
+     * Strong validator, unquoted; Spring adds the quotes
+     */
+    public String eTag() {
+        return "c" + revision;
+    }
+}
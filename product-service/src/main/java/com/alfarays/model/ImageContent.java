@@ -0,0 +1,14 @@
+package com.alfarays.model;
+
+/**
+ * A stored image file resolved for download
+ *
+ * @param id          image id
+ * @param variant     which rendition of the image this file is
+ * @param key         storage key of the file, see ImageStorage
+ * @param contentType media type recorded at upload
+ * @param length      file size in bytes
+ * @param contentHash SHA-256 of the file, used as its ETag
+ */
+public record ImageContent(Long id, String variant, String key, String contentType, long length, String contentHash) {
+}
@@ -16,4 +16,5 @@ public class ImageResponse {
     private String originalName;
     private String contentType;
     private Long size;
+    private String contentHash;
 }
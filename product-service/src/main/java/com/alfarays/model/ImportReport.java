@@ -0,0 +1,33 @@
+package com.alfarays.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO summarising a bulk product import
+ * Rows are committed batch by batch, so imported rows stay imported even when others failed
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportReport {
+
+    private long imported;
+    private long failed;
+    private long durationMs;
+    private List<RowError> errors;
+    // true when more rows failed than are listed in errors
+    private boolean errorsTruncated;
+
+    /**
+     * @param line    line (NDJSON) or record (CSV) number of the failed row, starting at 1
+     * @param message why it was rejected
+     */
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.alfarays.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for faceted product filtering
+ * Facet counts for a key ignore that key's own selection, so alternative values stay visible
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductFacetResult {
+
+    private List<ProductResponse> content;
+    private long total;
+    private int page;
+    private int size;
+
+    // specification key -> value -> number of matching products
+    private Map<String, Map<String, Long>> facets;
+
+    // category id -> number of matching products
+    private Map<Long, Long> categories;
+}
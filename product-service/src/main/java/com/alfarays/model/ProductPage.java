@@ -0,0 +1,24 @@
+package com.alfarays.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO for a keyset-paginated slice of products
+ * Pass nextCursor back as the cursor parameter to fetch the following page
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPage {
+
+    private List<ProductResponse> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+}
@@ -0,0 +1,44 @@
+package com.alfarays.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Map;
+
+/**
+ * DTO for partial product updates
+ * Every field is optional; whatever is left out keeps its stored value
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(
+        name = "ProductPatchRequest",
+        description = "Partial update of a product. Only the supplied fields change; images are added and removed individually."
+)
+public class ProductPatchRequest {
+
+    @Schema(description = "New product name", example = "Samsung Galaxy S24 Ultra")
+    private String name;
+
+    @Schema(description = "New category ID", example = "3")
+    private Long categoryId;
+
+    @Schema(
+            description = "Specification changes merged into the stored ones; a null value removes the key",
+            example = "{\"color\": \"titanium\", \"storage\": null}",
+            type = "object"
+    )
+    private Map<String, String> specification;
+
+    @Schema(description = "Images to add; bytes identical to an image the product already has are skipped", type = "array", format = "binary")
+    private MultipartFile[] images;
+
+    @Schema(description = "IDs of the product's images to remove", example = "[12, 15]")
+    private Long[] removeImageIds;
+}
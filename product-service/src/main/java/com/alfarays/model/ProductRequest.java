@@ -54,4 +54,10 @@ public class ProductRequest {
             format = "binary"
     )
     private MultipartFile[] images;
+
+    @Schema(
+            description = "On update, IDs of current images to keep next to the uploaded ones. When omitted the uploads replace the image set, keeping images whose bytes were uploaded again.",
+            example = "[12, 15]"
+    )
+    private Long[] retainImageIds;
 }
@@ -0,0 +1,24 @@
+package com.alfarays.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO for ranked full-text search results
+ * Content is ordered by relevance, best match first
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchResult {
+
+    private List<ProductResponse> content;
+    private long total;
+    private int page;
+    private int size;
+}
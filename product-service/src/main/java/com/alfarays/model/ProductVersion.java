@@ -0,0 +1,37 @@
+package com.alfarays.model;
+
+/**
+ * Version stamp of a single product representation: the product row version plus the version of the
+ * category whose name is embedded in it. Read with one primary-key lookup, no entity hydration.
+ */
+public record ProductVersion(Long id, Long version, Long categoryVersion) {
+
+    /**
+     * Versions a product representation was built from
+     */
+    public static ProductVersion of(ProductResponse product) {
+        Long categoryVersion = product.getCategory() != null ? product.getCategory().getVersion() : null;
+        return new ProductVersion(product.getId(), product.getVersion(), categoryVersion);
+    }
+
+    /**
+     * Whether this representation predates {@code other}: product version first, the embedded category
+     * version breaks ties
+     */
+    public boolean isOlderThan(ProductVersion other) {
+        int byProduct = Long.compare(orZero(version), orZero(other.version));
+        if (byProduct != 0) return byProduct < 0;
+        return orZero(categoryVersion) < orZero(other.categoryVersion);
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * Strong validator, unquoted; Spring adds the quotes
+     */
+    public String eTag() {
+        return "p" + id + "-" + version + "." + (categoryVersion != null ? categoryVersion : 0);
+    }
+}
@@ -0,0 +1,41 @@
+package com.alfarays.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque continuation tokens used by keyset pagination.
+ * A token wraps the id of the last row returned, so the next page seeks on the primary key
+ * instead of skipping an offset.
+ */
+public final class CursorCodec {
+
+    private static final String PREFIX = "id:";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(Long lastId) {
+        if (lastId == null) return null;
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Returns the id to seek after, or 0 when no cursor is given (first page).
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0L;
+
+        long id;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            id = raw.startsWith(PREFIX) ? Long.parseLong(raw.substring(PREFIX.length())) : -1L;
+        } catch (IllegalArgumentException ex) {
+            id = -1L;
+        }
+
+        if (id < 0) throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        return id;
+    }
+}
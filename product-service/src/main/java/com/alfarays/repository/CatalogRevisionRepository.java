@@ -0,0 +1,20 @@
+package com.alfarays.repository;
+
+import com.alfarays.entity.CatalogRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CatalogRevisionRepository extends JpaRepository<CatalogRevision, Long> {
+
+    /**
+     * Joins the caller's transaction, so the row lock is held until that write commits
+     */
+    @Transactional
+    @Modifying
+    @Query("update CatalogRevision r set r.revision = r.revision + 1 where r.id = " + CatalogRevision.ID)
+    int increment();
+}
@@ -4,6 +4,18 @@ import com.alfarays.entity.Image;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface ImageRepository extends JpaRepository<Image, Long> {
+
+    /**
+     * Rows sharing a content-addressed file; served by the content_hash index
+     */
+    long countByContentHashAndPath(String contentHash, String path);
+
+    /**
+     * Another image over the same stored file whose variants have already been generated
+     */
+    Optional<Image> findFirstByContentHashAndPathAndIdNotAndVariantsIsNotEmpty(String contentHash, String path, Long id);
 }
@@ -0,0 +1,14 @@
+package com.alfarays.repository;
+
+import com.alfarays.entity.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Read-only listing queries that project straight into {@link ProductRow} instead of hydrating entities
+ */
+public interface ProductProjectionRepository {
+
+    List<ProductRow> findRows(Specification<Product> specification);
+}
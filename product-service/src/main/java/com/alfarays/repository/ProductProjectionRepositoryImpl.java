@@ -0,0 +1,62 @@
+package com.alfarays.repository;
+
+import com.alfarays.entity.Category;
+import com.alfarays.entity.Image;
+import com.alfarays.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public class ProductProjectionRepositoryImpl implements ProductProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductRow> findRows(Specification<Product> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductRow> query = cb.createQuery(ProductRow.class);
+        Root<Product> product = query.from(Product.class);
+
+        Join<Product, Category> category = product.join("category", JoinType.LEFT);
+        Join<Product, Image> image = product.join("images", JoinType.LEFT);
+
+        query.select(cb.construct(
+                ProductRow.class,
+                product.get("id"),
+                product.get("name"),
+                product.get("version"),
+                category.get("id"),
+                category.get("name"),
+                category.get("version"),
+                image.get("id"),
+                image.get("name"),
+                image.get("originalName"),
+                image.get("contentType"),
+                image.get("size"),
+                image.get("contentHash"),
+                product.get("specification")
+        ));
+
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(product, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+
+        query.orderBy(cb.asc(product.get("id")), cb.asc(image.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultList();
+    }
+}
@@ -1,13 +1,61 @@
 package com.alfarays.repository;
 
 import com.alfarays.entity.Product;
+import com.alfarays.model.ProductVersion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Product repository with JPA Specification support for advanced filtering
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductProjectionRepository {
+
+    /**
+     * Keyset page: seeks on the primary key index instead of counting/skipping rows
+     * Category is joined and the specification is a column; images are batch-loaded (one query per page)
+     */
+    @EntityGraph(Product.GRAPH_SUMMARY)
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * The same keyset page restricted to one category
+     */
+    @EntityGraph(Product.GRAPH_SUMMARY)
+    List<Product> findByCategoryIdAndIdGreaterThanOrderByIdAsc(Long categoryId, Long id, Limit limit);
+
+    /**
+     * Single product with category, images and specifications in one statement
+     */
+    @EntityGraph(Product.GRAPH_DETAILS)
+    Optional<Product> findWithDetailsById(Long id);
+
+    /**
+     * Unpaged filter results with every association joined, avoiding 1 + 2N lazy loads in the mapper
+     */
+    @Override
+    @EntityGraph(Product.GRAPH_DETAILS)
+    List<Product> findAll(Specification<Product> spec);
+
+    /**
+     * Row-locks the product so concurrent updates of the same product serialize; the version only
+     * moves when the write actually changes something
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Product> findForUpdateById(Long id);
+
+    @Query("select new com.alfarays.model.ProductVersion(p.id, p.version, c.version) " +
+            "from Product p left join p.category c where p.id = :id")
+    Optional<ProductVersion> findVersionById(@Param("id") Long id);
 }
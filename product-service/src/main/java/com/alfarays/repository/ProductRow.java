@@ -0,0 +1,25 @@
+package com.alfarays.repository;
+
+import java.util.Map;
+
+/**
+ * Flat row of the product listing projection: one row per product x image, the specification
+ * document repeated on each.
+ * Built straight from the joined result set, so no entities enter the persistence context.
+ */
+public record ProductRow(
+        Long productId,
+        String productName,
+        Long productVersion,
+        Long categoryId,
+        String categoryName,
+        Long categoryVersion,
+        Long imageId,
+        String imageName,
+        String imageOriginalName,
+        String imageContentType,
+        Long imageSize,
+        String imageContentHash,
+        Map<String, String> specification
+) {
+}
@@ -0,0 +1,128 @@
+package com.alfarays.repository;
+
+import com.alfarays.configuration.SpecificationProperties;
+import com.alfarays.specification.ProductSpecification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * MySQL schema around the products.specification JSON column, applied at startup before the web
+ * server takes requests (ddl-auto has already added the column itself).
+ *
+ * Backfill: products written while specifications lived in product_specifications get their document
+ * built with JSON_OBJECTAGG, a range of product ids per statement so row locks stay short. Rows are
+ * only filled while NULL, so the step is idempotent and a no-op once done. The old table is kept for
+ * verification, but its foreign keys to products are dropped: nothing deletes its rows any more, and
+ * the constraint would otherwise make DELETE /products/{id} fail for every pre-migration product.
+ *
+ * Indexed keys: each key in product.specification.indexed-keys gets a virtual generated column with
+ * a secondary index. Its expression is the one ProductSpecification.bySpecification filters on, so
+ * MySQL substitutes the column and answers the filter from the index.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SpecificationSchema implements SmartInitializingSingleton {
+
+    private static final String LEGACY_TABLE = "product_specifications";
+    private static final Pattern INDEXABLE_KEY = Pattern.compile("[A-Za-z0-9_]{1,48}");
+
+    private static final String BACKFILL =
+            "update products p join (" +
+                    "select product_id, json_objectagg(spec_key, spec_value) document from " + LEGACY_TABLE + " " +
+                    "where product_id between ? and ? group by product_id" +
+                    ") s on s.product_id = p.id " +
+                    "set p.specification = s.document where p.specification is null";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SpecificationProperties properties;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isMySql()) {
+            log.debug("Not on MySQL, specification backfill and generated columns skipped");
+            return;
+        }
+        if (properties.isMigrateLegacy()) migrateLegacy();
+        releaseLegacyTable();
+        properties.getIndexedKeys().forEach(this::ensureIndexedColumn);
+    }
+
+    private void migrateLegacy() {
+        Long pending = jdbcTemplate.queryForObject("select count(*) from products where specification is null", Long.class);
+        if (pending == null || pending == 0) return;
+
+        long started = System.currentTimeMillis();
+        long migrated = 0;
+        if (tableExists(LEGACY_TABLE)) {
+            long[] bounds = jdbcTemplate.queryForObject(
+                    "select coalesce(min(product_id), 0), coalesce(max(product_id), -1) from " + LEGACY_TABLE,
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+            int step = Math.max(1, properties.getMigrationBatchSize());
+            for (long from = bounds[0]; from <= bounds[1]; from += step) {
+                migrated += jdbcTemplate.update(BACKFILL, from, from + step - 1);
+            }
+        }
+
+        // products that never had an entry start from an empty document, which also marks them done
+        int empty = jdbcTemplate.update("update products set specification = json_object() where specification is null");
+        log.info("Specification backfill: {} products from {}, {} without entries, in {} ms",
+                migrated, LEGACY_TABLE, empty, System.currentTimeMillis() - started);
+    }
+
+    private void releaseLegacyTable() {
+        List<String> constraints = jdbcTemplate.queryForList(
+                "select constraint_name from information_schema.referential_constraints " +
+                        "where constraint_schema = database() and table_name = ? and referenced_table_name = 'products'",
+                String.class, LEGACY_TABLE);
+        for (String constraint : constraints) {
+            jdbcTemplate.execute("alter table " + LEGACY_TABLE + " drop foreign key `" + constraint.replace("`", "``") + "`");
+            log.info("Dropped foreign key {} from {}; its rows no longer follow product deletes", constraint, LEGACY_TABLE);
+        }
+    }
+
+    private void ensureIndexedColumn(String key) {
+        if (key == null || !INDEXABLE_KEY.matcher(key).matches()) {
+            log.warn("Specification key '{}' not indexed: only letters, digits and _ are allowed", key);
+            return;
+        }
+
+        String column = "spec_" + key.toLowerCase(Locale.ROOT);
+        if (columnExists("products", column)) return;
+
+        // utf8mb4_bin matches what JSON_UNQUOTE returns, otherwise the optimizer will not substitute the
+        // column; 768 characters is the longest value an InnoDB index key holds in utf8mb4
+        jdbcTemplate.execute("alter table products add column " + column + " varchar(768) collate utf8mb4_bin " +
+                "generated always as (json_unquote(json_extract(specification, '" + ProductSpecification.jsonPath(key) + "'))) virtual, " +
+                "add index idx_products_" + column + " (" + column + ")");
+        log.info("Added indexed generated column {} for specification key '{}'", column, key);
+    }
+
+    private boolean isMySql() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "MySQL".equalsIgnoreCase(product);
+    }
+
+    private boolean tableExists(String table) {
+        Long count = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.tables where table_schema = database() and table_name = ?",
+                Long.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean columnExists(String table, String column) {
+        Long count = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.columns where table_schema = database() and table_name = ? and column_name = ?",
+                Long.class, table, column);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,215 @@
+package com.alfarays.resource;
+
+import com.alfarays.model.ErrorResponse;
+import com.alfarays.model.ImageContent;
+import com.alfarays.service.ImageService;
+import com.alfarays.storage.FileNames;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves stored image bytes.
+ *
+ * Image files never change once written, so responses for a fixed rendition (/images/{id} and
+ * /images/{id}/{variant}) are marked immutable for a year and validated by their content hash. A
+ * ?width= response names no rendition: it falls back to the original until the variants have been
+ * generated, so caches must revalidate it (no-cache) and pick up the variant through its ETag. Bodies on local storage go out through Tomcat's sendfile when the connector
+ * supports it (the kernel copies file pages straight to the socket), otherwise through
+ * FileChannel.transferTo; remote storage is streamed with a ranged read.
+ * Single byte ranges are honoured; multi-range requests get the whole file. Variants are separate
+ * files with their own hash, so width-negotiated responses vary in ETag as well.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/images")
+@Tag(
+        name = "Images",
+        description = "Download endpoints for stored product images"
+)
+public class ImageResource {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    private final ImageService imageService;
+
+    @GetMapping("/{id}")
+    @Operation(
+            summary = "Download an image",
+            description = "Streams the original upload, or with ?width= the smallest generated variant at least that wide. Supports Range, If-None-Match and If-Range."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Image bytes"),
+            @ApiResponse(responseCode = "206", description = "Requested byte range"),
+            @ApiResponse(responseCode = "304", description = "Unchanged since the supplied ETag"),
+            @ApiResponse(responseCode = "404", description = "Image not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "416", description = "Range not satisfiable")
+    })
+    public void get(
+            @PathVariable Long id,
+
+            @Parameter(description = "Display width in pixels; picks the best-fitting variant", example = "320")
+            @RequestParam(required = false) Integer width,
+
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        if (width != null && width > 0) {
+            serve(imageService.getBestFit(id, width), REVALIDATE, request, response);
+        } else {
+            serve(imageService.getContent(id, ImageService.ORIGINAL), IMMUTABLE, request, response);
+        }
+    }
+
+    @GetMapping("/{id}/{variant}")
+    @Operation(summary = "Download an image variant", description = "Streams a named rendition of the image.")
+    public void getVariant(
+            @PathVariable Long id,
+
+            @Parameter(description = "Variant name: original, thumbnail, medium or large", example = "thumbnail")
+            @PathVariable String variant,
+
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        serve(imageService.getContent(id, variant), IMMUTABLE, request, response);
+    }
+
+    private void serve(ImageContent content, CacheControl cacheControl, HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        String eTag = eTag(content);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (new ServletWebRequest(request, response).checkNotModified(eTag)) {
+            return;
+        }
+
+        long length = content.length();
+        long start = 0;
+        long end = length - 1;
+
+        List<HttpRange> ranges = ranges(request, eTag);
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        if (FileNames.isInlineImageType(content.contentType())) {
+            response.setContentType(content.contentType());
+        } else {
+            // rows stored before types were derived from the extension may carry a client-supplied
+            // text/html or image/svg+xml; those are downloaded, never rendered from this origin
+            response.setContentType(FileNames.OCTET_STREAM);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+        }
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        send(content, start, end - start + 1, request, response);
+    }
+
+    /**
+     * A Range header only applies when If-Range is absent or still matches the current file
+     */
+    private static List<HttpRange> ranges(HttpServletRequest request, String eTag) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null) return List.of();
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals("\"" + eTag + "\"")) return List.of();
+
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            // an unparseable Range is ignored rather than rejected
+            return List.of();
+        }
+    }
+
+    private void send(ImageContent content, long start, long count, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(count);
+        if (count <= 0 || HttpMethod.HEAD.matches(request.getMethod())) return;
+
+        Optional<Path> file = imageService.localFile(content);
+        if (file.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file itself once the handler returns, without passing it through user space
+            request.setAttribute(SENDFILE_FILENAME, file.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        if (file.isEmpty()) {
+            // remote storage: ranged read from the backend, copied through
+            try (InputStream in = imageService.open(content, start, count)) {
+                in.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.get(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) break;
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    /**
+     * Content hash when known; images stored before hashing fall back to id and size
+     */
+    private static String eTag(ImageContent content) {
+        if (content.contentHash() != null) return content.contentHash();
+        return "i" + content.id() + "-" + content.variant() + "-" + content.length();
+    }
+}
@@ -1,12 +1,24 @@
 package com.alfarays.resource;
 
+import com.alfarays.bulk.BulkFormat;
+import com.alfarays.configuration.HttpCacheProperties;
+import com.alfarays.mapper.SpecificationParser;
 import com.alfarays.model.ErrorResponse;
+import com.alfarays.model.ImportReport;
+import com.alfarays.model.ProductFacetResult;
+import com.alfarays.model.ProductPage;
+import com.alfarays.model.ProductPatchRequest;
 import com.alfarays.model.ProductRequest;
 import com.alfarays.model.ProductResponse;
+import com.alfarays.model.ProductSearchResult;
+import com.alfarays.model.ProductVersion;
 import com.alfarays.service.IProductService;
+import com.alfarays.service.ProductBulkService;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,15 +28,25 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping(value = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -38,6 +60,13 @@ import java.util.Map;
 public class ProductResource {
 
     private final IProductService productService;
+    private final ProductBulkService productBulkService;
+    private final ObjectMapper objectMapper;
+    private final SpecificationParser specificationParser;
+    private final HttpCacheProperties httpCacheProperties;
+
+    @Value("${product.stream.batch-size:500}")
+    private int streamBatchSize;
 
     @PostMapping(value = "/create", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(
@@ -78,12 +107,8 @@ public class ProductResource {
             request.setCategoryId(categoryId);
             request.setImages(images);
 
-            /** SPECIFICATION PARSING **/
             if (specification != null && !specification.isBlank()) {
-                ObjectMapper mapper = new ObjectMapper();
-                TypeReference<Map<String, String>> typeRef = new TypeReference<>() {
-                };
-                request.setSpecification(mapper.readValue(specification, typeRef));
+                request.setSpecification(specificationParser.parse(specification));
             }
 
             ProductResponse response = productService.create(request);
@@ -127,7 +152,10 @@ public class ProductResource {
             @RequestParam String name,
             @RequestParam Long categoryId,
             @RequestParam(required = false) String specification,
-            @RequestParam(required = false) MultipartFile[] images) {
+            @RequestParam(required = false) MultipartFile[] images,
+
+            @Parameter(description = "IDs of current images to keep next to the uploads; when omitted the uploads replace the image set")
+            @RequestParam(required = false) Long[] retainImageIds) {
 
         log.info("Updating product with id: {}", id);
 
@@ -136,11 +164,10 @@ public class ProductResource {
             request.setName(name);
             request.setCategoryId(categoryId);
             request.setImages(images);
+            request.setRetainImageIds(retainImageIds);
 
             if (specification != null && !specification.isBlank()) {
-                ObjectMapper mapper = new ObjectMapper();
-                request.setSpecification(mapper.readValue(specification, new TypeReference<>() {
-                }));
+                request.setSpecification(specificationParser.parse(specification));
             }
 
             return ResponseEntity.ok(productService.update(id, request));
@@ -156,27 +183,254 @@ public class ProductResource {
         }
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE, MediaType.APPLICATION_FORM_URLENCODED_VALUE})
+    @Operation(
+            summary = "Partially update a product",
+            description = "Changes only the supplied fields. Specifications are merged (a null value removes the key); images are added or removed individually, so unchanged images need not be resent."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200",
+                    description = "Product updated successfully",
+                    content = @Content(schema = @Schema(implementation = ProductResponse.class))),
+
+            @ApiResponse(responseCode = "400",
+                    description = "Invalid request, malformed specifications JSON or unknown image ID",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+
+            @ApiResponse(responseCode = "500",
+                    description = "Unexpected internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> patch(
+            @PathVariable Long id,
+
+            @Parameter(description = "New product name")
+            @RequestParam(required = false) String name,
+
+            @Parameter(description = "New category ID", example = "1")
+            @RequestParam(required = false) Long categoryId,
+
+            @Parameter(description = "Specification changes as JSON; null values remove keys", example = "{\"color\":\"red\",\"size\":null}")
+            @RequestParam(required = false) String specification,
+
+            @Parameter(description = "Images to add")
+            @RequestParam(required = false) MultipartFile[] images,
+
+            @Parameter(description = "IDs of images to remove")
+            @RequestParam(required = false) Long[] removeImageIds) {
+
+        log.info("Patching product with id: {}", id);
+
+        try {
+            ProductPatchRequest request = new ProductPatchRequest();
+            request.setName(name);
+            request.setCategoryId(categoryId);
+            request.setImages(images);
+            request.setRemoveImageIds(removeImageIds);
+
+            if (specification != null && !specification.isBlank()) {
+                request.setSpecification(specificationParser.parse(specification));
+            }
+
+            return ResponseEntity.ok(productService.patch(id, request));
+
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(null);
+
+        } catch (Exception e) {
+            log.error("Error while patching product", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(null);
+        }
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Get product by ID")
+    @Operation(
+            summary = "Get product by ID",
+            description = "Carries a strong ETag derived from the product and category versions; send it back in If-None-Match to get a 304 without a body."
+    )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Product retrieved",
                     content = @Content(schema = @Schema(implementation = ProductResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Product unchanged since the supplied ETag"),
             @ApiResponse(responseCode = "404", description = "Product not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<?> get(@PathVariable Long id) {
+    public ResponseEntity<?> get(@PathVariable Long id, WebRequest webRequest) {
         try {
-            return ResponseEntity.ok(productService.get(id));
+            // validate against the version row before loading or mapping the product
+            ProductVersion current = productService.getVersion(id);
+            if (webRequest.checkNotModified(current.eTag())) {
+                return notModified(current.eTag());
+            }
+
+            ProductResponse product = productService.get(id);
+            if (!current.equals(ProductVersion.of(product))) {
+                // this replica missed a catalog-changed event; never pair the new ETag with an old body
+                productService.evict(id);
+                product = productService.get(id);
+            }
+
+            // taken from the body that goes out, so the validator always describes it
+            return ResponseEntity.ok()
+                    .eTag(ProductVersion.of(product).eTag())
+                    .cacheControl(httpCacheProperties.toCacheControl())
+                    .body(product);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(null);
         }
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Get products by IDs",
+            description = "For service-to-service lookups: a JSON array of product IDs in, a map of ID to product out, read in a single query. Unknown IDs are absent from the map."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Products found"),
+            @ApiResponse(responseCode = "400", description = "Missing body or more IDs than product.batch.max-ids",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<Map<Long, ProductResponse>> batch(@RequestBody List<Long> ids) {
+        try {
+            return ResponseEntity.ok(productService.getBatch(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(null);
+        }
+    }
+
     @GetMapping("/get.all")
-    @Operation(summary = "Get all products")
-    public ResponseEntity<List<ProductResponse>> getAll() {
-        return ResponseEntity.ok(productService.getAll());
+    @Operation(
+            summary = "Get all products",
+            description = "Streams every product as a JSON array. Rows are read in keyset batches and written incrementally, so memory stays flat regardless of catalog size. Conditional on the catalog ETag."
+    )
+    public ResponseEntity<StreamingResponseBody> getAll(WebRequest webRequest) {
+        String eTag = productService.getCatalogVersion().eTag();
+        if (webRequest.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
+
+        ObjectWriter writer = objectMapper.writerFor(ProductResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.writeStartArray();
+
+                String cursor = null;
+                do {
+                    ProductPage page = productService.scan(cursor, streamBatchSize);
+                    for (ProductResponse product : page.getContent()) {
+                        writer.writeValue(generator, product);
+                    }
+                    generator.flush();
+                    cursor = page.getNextCursor();
+                } while (cursor != null);
+
+                generator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag)
+                .cacheControl(httpCacheProperties.toCacheControl())
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = {BulkFormat.NDJSON_VALUE, BulkFormat.CSV_VALUE})
+    @Operation(
+            summary = "Bulk import products",
+            description = "Streams NDJSON (one product object per line) or CSV (header with name, categoryId and one column per specification key). Rows are written in JDBC batches; rejected rows are reported by line and do not stop the import."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import finished, see the report for rejected rows",
+                    content = @Content(schema = @Schema(implementation = ImportReport.class))),
+            @ApiResponse(responseCode = "400", description = "Unsupported format or missing CSV header columns",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<ImportReport> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+
+        try {
+            return ResponseEntity.ok(productBulkService.importProducts(body, BulkFormat.fromMediaType(contentType)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(null);
+        } catch (IOException e) {
+            log.error("Error while importing products", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(null);
+        }
+    }
+
+    @GetMapping(value = "/export", produces = {BulkFormat.NDJSON_VALUE, BulkFormat.CSV_VALUE})
+    @Operation(
+            summary = "Bulk export products",
+            description = "Streams every product as NDJSON or CSV in the shape the import accepts, reading keyset batches so memory stays flat."
+    )
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "ndjson or csv", example = "csv")
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        BulkFormat bulkFormat;
+        try {
+            bulkFormat = BulkFormat.fromName(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(null);
+        }
+
+        StreamingResponseBody body = outputStream -> productBulkService.export(outputStream, bulkFormat);
+
+        return ResponseEntity.ok()
+                .contentType(bulkFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("products." + bulkFormat.name().toLowerCase())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    @GetMapping("/page")
+    @Operation(
+            summary = "Get a page of products",
+            description = "Keyset-paginated listing ordered by id. Pass the returned nextCursor to fetch the following page."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page retrieved",
+                    content = @Content(schema = @Schema(implementation = ProductPage.class))),
+            @ApiResponse(responseCode = "304", description = "Catalog unchanged since the supplied ETag"),
+            @ApiResponse(responseCode = "400", description = "Malformed cursor",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<ProductPage> page(
+            @Parameter(description = "Opaque continuation token from a previous page")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Page size", example = "20")
+            @RequestParam(defaultValue = "20") int size,
+
+            WebRequest webRequest) {
+
+        try {
+            String eTag = productService.getCatalogVersion().eTag();
+            if (webRequest.checkNotModified(eTag)) {
+                return notModified(eTag);
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(httpCacheProperties.toCacheControl())
+                    .body(productService.getPage(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(null);
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -196,12 +450,96 @@ public class ProductResource {
     }
 
     @GetMapping("/filter")
-    @Operation(summary = "Filter products", description = "Filter by name, categoryId, or categoryName")
+    @Operation(summary = "Filter products", description = "Filter by name, categoryId, categoryName or exact specification values (spec=color:blue, repeatable)")
     public ResponseEntity<List<ProductResponse>> filter(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) Long categoryId,
-            @RequestParam(required = false) String categoryName) {
+            @RequestParam(required = false) String categoryName,
+
+            @Parameter(description = "Specification filters as key:value, repeatable", example = "color:blue")
+            @RequestParam(name = "spec", required = false) List<String> spec) {
+
+        Map<String, Set<String>> specification = parseSpec(spec);
+        if (specification == null) {
+            return ResponseEntity.badRequest()
+                    .body(null);
+        }
+
+        return ResponseEntity.ok(productService.filter(name, categoryId, categoryName, specification));
+    }
+
+    @GetMapping("/search")
+    @Operation(
+            summary = "Search products",
+            description = "Relevance-ranked full-text search over product name, category and specification values. Supports prefix (search-as-you-type) and single-typo matches."
+    )
+    public ResponseEntity<ProductSearchResult> search(
+            @Parameter(description = "Search text", example = "galaxy blu")
+            @RequestParam("q") String query,
+
+            @Parameter(description = "Zero-based page index", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+
+            @Parameter(description = "Page size", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+
+        return ResponseEntity.ok(productService.search(query, page, size));
+    }
+
+    @GetMapping("/facets")
+    @Operation(
+            summary = "Faceted product filtering",
+            description = "Filter by category and any specification key/value (spec=color:blue&spec=size:L). Values of the same key are ORed, different keys are ANDed. Returns per-value counts for every specification key and per-category counts."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Facets computed",
+                    content = @Content(schema = @Schema(implementation = ProductFacetResult.class))),
+            @ApiResponse(responseCode = "400", description = "Malformed spec filter",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<ProductFacetResult> facets(
+            @Parameter(description = "Category ID", example = "1")
+            @RequestParam(required = false) Long categoryId,
+
+            @Parameter(description = "Specification filters as key:value, repeatable", example = "color:blue")
+            @RequestParam(name = "spec", required = false) List<String> spec,
+
+            @Parameter(description = "Zero-based page index", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+
+            @Parameter(description = "Page size", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+
+        Map<String, Set<String>> specification = parseSpec(spec);
+        if (specification == null) {
+            return ResponseEntity.badRequest()
+                    .body(null);
+        }
+
+        return ResponseEntity.ok(productService.facets(categoryId, specification, page, size));
+    }
+
+    /**
+     * Groups key:value filters by key; null when one of them is malformed
+     */
+    private static Map<String, Set<String>> parseSpec(List<String> spec) {
+        Map<String, Set<String>> specification = new LinkedHashMap<>();
+        if (spec == null) return specification;
+
+        for (String filter : spec) {
+            int separator = filter.indexOf(':');
+            if (separator <= 0 || separator == filter.length() - 1) return null;
+            specification
+                    .computeIfAbsent(filter.substring(0, separator).trim(), key -> new LinkedHashSet<>())
+                    .add(filter.substring(separator + 1).trim());
+        }
+        return specification;
+    }
 
-        return ResponseEntity.ok(productService.filter(name, categoryId, categoryName));
+    private <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(httpCacheProperties.toCacheControl())
+                .build();
     }
 }
@@ -0,0 +1,85 @@
+package com.alfarays.search;
+
+import com.alfarays.event.CategoryChangedEvent;
+import com.alfarays.event.ChangeType;
+import com.alfarays.event.ProductChangedEvent;
+import com.alfarays.model.ProductPage;
+import com.alfarays.service.IProductService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the in-process search and facet indexes in step with the database:
+ * a full rebuild once the application is ready, then incremental updates after each committed write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogIndexer {
+
+    private final IProductService productService;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+
+    @Value("${product.search.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        searchIndex.clear();
+        facetIndex.clear();
+
+        String cursor = null;
+        do {
+            ProductPage page = productService.scan(cursor, rebuildBatchSize);
+            page.getContent().forEach(product -> {
+                searchIndex.index(product);
+                facetIndex.index(product);
+            });
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        log.info("Search and facet indexes rebuilt with {} products in {} ms", searchIndex.size(), System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            searchIndex.remove(event.productId());
+            facetIndex.remove(event.productId());
+        } else {
+            searchIndex.index(event.product());
+            facetIndex.index(event.product());
+        }
+        log.debug("Search and facet indexes updated for product id: {} ({})", event.productId(), event.type());
+    }
+
+    /**
+     * Indexed products embed the category name, so a renamed category re-indexes its products, one
+     * keyset batch at a time. A category that still has products cannot be deleted, so deletes leave
+     * the indexes alone.
+     */
+    @TransactionalEventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) return;
+
+        int indexed = 0;
+        String cursor = null;
+        do {
+            ProductPage page = productService.scan(event.categoryId(), cursor, rebuildBatchSize);
+            page.getContent().forEach(product -> {
+                searchIndex.index(product);
+                facetIndex.index(product);
+            });
+            indexed += page.getContent().size();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        log.debug("Search and facet indexes updated for {} products of category id: {}", indexed, event.categoryId());
+    }
+}
@@ -0,0 +1,15 @@
+package com.alfarays.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a faceted query against {@link ProductFacetIndex}
+ *
+ * @param total      number of matching products
+ * @param ids        product ids of the requested page, in index order
+ * @param facets     specification key -> value -> count, values ordered by count
+ * @param categories category id -> count
+ */
+public record FacetHits(long total, List<Long> ids, Map<String, Map<String, Long>> facets, Map<Long, Long> categories) {
+}
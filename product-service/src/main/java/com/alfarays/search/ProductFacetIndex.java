@@ -0,0 +1,214 @@
+package com.alfarays.search;
+
+import com.alfarays.model.ProductResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet engine over category and free-form specification key/values.
+ *
+ * Each product gets a dense ordinal; every category and every spec key=value pair keeps a
+ * {@link CompactBitmap} posting of the ordinals carrying it. Filtering is OR within a key and AND
+ * across keys, and counts are multi-select style: the counts for a key ignore that key's own
+ * selection, so clients can offer "color: blue (12), red (4)" while blue is already selected.
+ *
+ * Ordinals are handed out in insertion order and never reused; the startup rebuild inserts by
+ * ascending id, so index order tracks product id order.
+ */
+@Component
+public class ProductFacetIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private final Map<Integer, FacetDocument> documents = new HashMap<>();
+
+    private CompactBitmap live = new CompactBitmap();
+    private final Map<Long, CompactBitmap> categories = new HashMap<>();
+    private final Map<String, Map<String, CompactBitmap>> specifications = new HashMap<>();
+
+    public void index(ProductResponse product) {
+        if (product == null || product.getId() == null) return;
+
+        Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        Map<String, String> specification = new HashMap<>();
+        if (product.getSpecification() != null) {
+            product.getSpecification().forEach((key, value) -> {
+                if (key != null && value != null) specification.put(normalize(key), normalize(value));
+            });
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(product.getId());
+            if (ordinal == null) {
+                ordinal = productIds.size();
+                productIds.add(product.getId());
+                ordinals.put(product.getId(), ordinal);
+            } else {
+                unpost(ordinal);
+            }
+
+            int position = ordinal;
+            documents.put(position, new FacetDocument(categoryId, specification));
+            live.add(position);
+            if (categoryId != null) {
+                categories.computeIfAbsent(categoryId, id -> new CompactBitmap()).add(position);
+            }
+            specification.forEach((key, value) -> specifications
+                    .computeIfAbsent(key, k -> new HashMap<>())
+                    .computeIfAbsent(value, v -> new CompactBitmap())
+                    .add(position));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal != null) {
+                unpost(ordinal);
+                productIds.set(ordinal, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            productIds.clear();
+            documents.clear();
+            live = new CompactBitmap();
+            categories.clear();
+            specifications.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param categoryId     restrict to a category, or null for all
+     * @param filters        spec key -> accepted values (OR within a key, AND across keys)
+     * @param page           zero-based page of matching ids to return
+     * @param size           page size
+     * @param valuesPerFacet maximum number of values reported per specification key
+     */
+    public FacetHits query(Long categoryId, Map<String, Set<String>> filters, int page, int size, int valuesPerFacet) {
+        lock.readLock().lock();
+        try {
+            CompactBitmap categoryMatch = categoryId == null
+                    ? live
+                    : categories.getOrDefault(categoryId, new CompactBitmap());
+
+            Map<String, CompactBitmap> keyMatches = new LinkedHashMap<>();
+            filters.forEach((key, values) -> keyMatches.put(normalize(key), union(normalize(key), values)));
+
+            CompactBitmap result = intersect(categoryMatch, keyMatches, null);
+
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            specifications.forEach((key, values) -> {
+                CompactBitmap base = keyMatches.containsKey(key) ? intersect(categoryMatch, keyMatches, key) : result;
+                Map<String, Long> counts = count(base, values, valuesPerFacet);
+                if (!counts.isEmpty()) facets.put(key, counts);
+            });
+
+            CompactBitmap categoryBase = intersect(live, keyMatches, null);
+            Map<Long, Long> categoryCounts = count(categoryBase, categories, Integer.MAX_VALUE);
+
+            return new FacetHits(result.cardinality(), page(result, page, size), facets, categoryCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private CompactBitmap union(String key, Set<String> values) {
+        Map<String, CompactBitmap> postings = specifications.getOrDefault(key, Map.of());
+        CompactBitmap union = new CompactBitmap();
+        for (String value : values) {
+            CompactBitmap posting = postings.get(normalize(value));
+            if (posting != null) union = union.or(posting);
+        }
+        return union;
+    }
+
+    private static CompactBitmap intersect(CompactBitmap start, Map<String, CompactBitmap> keyMatches, String excludedKey) {
+        CompactBitmap result = start;
+        for (Map.Entry<String, CompactBitmap> entry : keyMatches.entrySet()) {
+            if (!entry.getKey().equals(excludedKey)) result = result.and(entry.getValue());
+        }
+        return result;
+    }
+
+    private static <K> Map<K, Long> count(CompactBitmap base, Map<K, CompactBitmap> postings, int limit) {
+        List<Map.Entry<K, Long>> counts = new ArrayList<>();
+        if (!base.isEmpty()) {
+            postings.forEach((value, posting) -> {
+                long count = base.andCardinality(posting);
+                if (count > 0) counts.add(Map.entry(value, count));
+            });
+        }
+
+        counts.sort(Map.Entry.<K, Long>comparingByValue().reversed());
+        Map<K, Long> top = new LinkedHashMap<>();
+        for (int i = 0; i < counts.size() && i < limit; i++) {
+            top.put(counts.get(i).getKey(), counts.get(i).getValue());
+        }
+        return top;
+    }
+
+    private List<Long> page(CompactBitmap result, int page, int size) {
+        long offset = (long) Math.max(page, 0) * size;
+        List<Long> ids = new ArrayList<>(Math.max(size, 0));
+        long[] position = {0};
+        result.forEach(ordinal -> {
+            if (position[0]++ >= offset && ids.size() < size) ids.add(productIds.get(ordinal));
+        });
+        return ids;
+    }
+
+    private void unpost(int ordinal) {
+        FacetDocument document = documents.remove(ordinal);
+        live.remove(ordinal);
+        if (document == null) return;
+
+        if (document.categoryId() != null) {
+            CompactBitmap posting = categories.get(document.categoryId());
+            if (posting != null) {
+                posting.remove(ordinal);
+                if (posting.isEmpty()) categories.remove(document.categoryId());
+            }
+        }
+
+        document.specification().forEach((key, value) -> {
+            Map<String, CompactBitmap> values = specifications.get(key);
+            if (values == null) return;
+            CompactBitmap posting = values.get(value);
+            if (posting == null) return;
+            posting.remove(ordinal);
+            if (posting.isEmpty()) values.remove(value);
+            if (values.isEmpty()) specifications.remove(key);
+        });
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record FacetDocument(Long categoryId, Map<String, String> specification) {
+    }
+}
@@ -0,0 +1,293 @@
+package com.alfarays.search;
+
+import com.alfarays.model.ProductResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over product name, category name and specification values.
+ *
+ * Every query term must match a document (AND semantics) either exactly, as a prefix of an indexed
+ * term (search-as-you-type) or within one edit (typo tolerance). Matches are ranked with BM25 over
+ * field-boosted term frequencies; prefix and fuzzy expansions score below exact matches.
+ *
+ * Typo candidates come from a single-deletion neighbourhood index (SymSpell style), so fuzzy lookup
+ * costs a handful of hash probes instead of a scan over the dictionary.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final float NAME_BOOST = 3.0f;
+    private static final float CATEGORY_BOOST = 1.5f;
+    private static final float SPECIFICATION_BOOST = 1.0f;
+
+    private static final float PREFIX_WEIGHT = 0.7f;
+    private static final float FUZZY_WEIGHT = 0.4f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (product id -> boosted term frequency)
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // term, and the term with any one character removed -> indexed terms
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+    private double totalLength;
+
+    public void index(ProductResponse product) {
+        if (product == null || product.getId() == null) return;
+
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, product.getName(), NAME_BOOST);
+        if (product.getCategory() != null) {
+            addField(terms, product.getCategory().getName(), CATEGORY_BOOST);
+        }
+        if (product.getSpecification() != null) {
+            product.getSpecification().values().forEach(value -> addField(terms, value, SPECIFICATION_BOOST));
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            IndexedDocument document = new IndexedDocument(terms);
+            documents.put(product.getId(), document);
+            totalLength += document.length();
+            terms.forEach((term, frequency) -> {
+                Map<Long, Float> posting = postings.get(term);
+                if (posting == null) {
+                    posting = new HashMap<>();
+                    postings.put(term, posting);
+                    registerDeletions(term);
+                }
+                posting.put(product.getId(), frequency);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            deletions.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, int page, int size) {
+        List<String> tokens = Tokenizer.tokenize(query);
+        if (tokens.isEmpty() || size <= 0 || page < 0) return SearchHits.empty();
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) return SearchHits.empty();
+
+            double averageLength = totalLength / documents.size();
+            Map<Long, Double> scores = null;
+
+            for (String token : new HashSet<>(tokens)) {
+                Map<Long, Double> tokenScores = scoreToken(token, averageLength);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) return SearchHits.empty();
+            }
+
+            return topK(scores, page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> scoreToken(String token, double averageLength) {
+        Map<Long, Double> scores = new HashMap<>();
+
+        Map<Long, Float> exact = postings.get(token);
+        if (exact != null) accumulate(scores, exact, 1.0f, averageLength);
+
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            int expanded = 0;
+            for (Map.Entry<String, Map<Long, Float>> entry : postings.tailMap(token, false).entrySet()) {
+                if (!entry.getKey().startsWith(token) || expanded++ >= MAX_PREFIX_EXPANSIONS) break;
+                accumulate(scores, entry.getValue(), PREFIX_WEIGHT, averageLength);
+            }
+        }
+
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            for (String candidate : fuzzyCandidates(token)) {
+                accumulate(scores, postings.get(candidate), FUZZY_WEIGHT, averageLength);
+            }
+        }
+
+        return scores;
+    }
+
+    private void accumulate(Map<Long, Double> scores, Map<Long, Float> posting, float weight, double averageLength) {
+        int documentCount = documents.size();
+        int documentFrequency = posting.size();
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+        posting.forEach((id, frequency) -> {
+            double length = documents.get(id).length();
+            double tf = frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+            scores.merge(id, idf * tf * weight, Math::max);
+        });
+    }
+
+    private Set<String> fuzzyCandidates(String token) {
+        Set<String> candidates = new HashSet<>();
+        collect(candidates, deletions.get(token));
+        for (int i = 0; i < token.length(); i++) {
+            collect(candidates, deletions.get(deleteAt(token, i)));
+        }
+
+        candidates.remove(token);
+        candidates.removeIf(candidate -> candidate.startsWith(token) || !withinOneEdit(token, candidate));
+        return candidates;
+    }
+
+    private static void collect(Set<String> target, Set<String> source) {
+        if (source != null) target.addAll(source);
+    }
+
+    private SearchHits topK(Map<Long, Double> scores, int page, int size) {
+        long offset = (long) page * size;
+        if (offset >= scores.size()) return new SearchHits(scores.size(), List.of());
+
+        int limit = (int) Math.min(scores.size(), offset + size);
+        Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+
+        // min-heap of the best `limit` hits: O(n log k) instead of sorting every match
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(limit, ranking);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) heap.poll();
+        }
+
+        List<Map.Entry<Long, Double>> best = new ArrayList<>(heap);
+        best.sort(ranking.reversed());
+
+        List<Long> ids = new ArrayList<>(size);
+        for (int i = (int) offset; i < best.size(); i++) {
+            ids.add(best.get(i).getKey());
+        }
+        return new SearchHits(scores.size(), ids);
+    }
+
+    private void removeDocument(Long productId) {
+        IndexedDocument document = documents.remove(productId);
+        if (document == null) return;
+
+        totalLength -= document.length();
+        document.terms().forEach((term, frequency) -> {
+            Map<Long, Float> posting = postings.get(term);
+            if (posting == null) return;
+            posting.remove(productId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+                unregisterDeletions(term);
+            }
+        });
+    }
+
+    private void registerDeletions(String term) {
+        deletions.computeIfAbsent(term, key -> new HashSet<>()).add(term);
+        for (int i = 0; i < term.length(); i++) {
+            deletions.computeIfAbsent(deleteAt(term, i), key -> new HashSet<>()).add(term);
+        }
+    }
+
+    private void unregisterDeletions(String term) {
+        unregister(term, term);
+        for (int i = 0; i < term.length(); i++) {
+            unregister(deleteAt(term, i), term);
+        }
+    }
+
+    private void unregister(String key, String term) {
+        Set<String> terms = deletions.get(key);
+        if (terms == null) return;
+        terms.remove(term);
+        if (terms.isEmpty()) deletions.remove(key);
+    }
+
+    private static void addField(Map<String, Float> terms, String text, float boost) {
+        for (String token : Tokenizer.tokenize(text)) {
+            terms.merge(token, boost, Float::sum);
+        }
+    }
+
+    private static String deleteAt(String term, int index) {
+        return term.substring(0, index) + term.substring(index + 1);
+    }
+
+    /**
+     * Optimal string alignment distance <= 1: one insertion, deletion, substitution or adjacent transposition
+     */
+    static boolean withinOneEdit(String a, String b) {
+        int lengthDifference = a.length() - b.length();
+        if (Math.abs(lengthDifference) > 1) return false;
+
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) i++;
+
+        if (lengthDifference > 0) return a.substring(i + 1).equals(b.substring(i));
+        if (lengthDifference < 0) return a.substring(i).equals(b.substring(i + 1));
+        if (i == a.length()) return true;
+        if (a.substring(i + 1).equals(b.substring(i + 1))) return true;
+        return i + 1 < a.length()
+                && a.charAt(i) == b.charAt(i + 1)
+                && a.charAt(i + 1) == b.charAt(i)
+                && a.substring(i + 2).equals(b.substring(i + 2));
+    }
+
+    private record IndexedDocument(Map<String, Float> terms, float length) {
+
+        IndexedDocument(Map<String, Float> terms) {
+            this(terms, (float) terms.values().stream().mapToDouble(Float::doubleValue).sum());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.alfarays.search;
+
+import java.util.List;
+
+/**
+ * Ranked page of matching product ids, best match first
+ *
+ * @param total number of matching products across all pages
+ * @param ids   product ids of the requested page
+ */
+public record SearchHits(long total, List<Long> ids) {
+
+    public static SearchHits empty() {
+        return new SearchHits(0, List.of());
+    }
+}
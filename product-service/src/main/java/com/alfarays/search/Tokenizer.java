@@ -0,0 +1,30 @@
+package com.alfarays.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into lower-cased, accent-folded terms on anything that is not a letter or digit
+ */
+public final class Tokenizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) return tokens;
+
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String token : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+}
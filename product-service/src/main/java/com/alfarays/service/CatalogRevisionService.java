@@ -0,0 +1,71 @@
+package com.alfarays.service;
+
+import com.alfarays.entity.CatalogRevision;
+import com.alfarays.event.CategoryChangedEvent;
+import com.alfarays.event.ProductChangedEvent;
+import com.alfarays.model.CatalogVersion;
+import com.alfarays.repository.CatalogRevisionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the catalog revision in step with catalog writes. Every product and category write publishes
+ * its change event inside its transaction; the first one in a transaction bumps the revision in that
+ * same transaction, so a bulk import batch counts once and a rolled back write not at all.
+ *
+ * Reading the revision is one primary-key lookup, whatever the catalog size.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogRevisionService implements SmartInitializingSingleton {
+
+    private final CatalogRevisionRepository catalogRevisionRepository;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (catalogRevisionRepository.existsById(CatalogRevision.ID)) return;
+        try {
+            catalogRevisionRepository.save(new CatalogRevision(CatalogRevision.ID, 0L));
+            log.info("Catalog revision initialised");
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Catalog revision initialised by another replica");
+        }
+    }
+
+    public CatalogVersion current() {
+        return new CatalogVersion(catalogRevisionRepository.findById(CatalogRevision.ID)
+                .map(CatalogRevision::getRevision)
+                .orElse(0L));
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        bumpOncePerTransaction();
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        bumpOncePerTransaction();
+    }
+
+    private void bumpOncePerTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (TransactionSynchronizationManager.hasResource(this)) return;
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(CatalogRevisionService.this);
+                }
+            });
+        }
+        catalogRevisionRepository.increment();
+    }
+}
@@ -1,42 +1,61 @@
 package com.alfarays.service;
 
+import com.alfarays.configuration.CacheConfiguration;
 import com.alfarays.entity.Category;
+import com.alfarays.event.CategoryChangedEvent;
 import com.alfarays.mapper.CategoryMapper;
 import com.alfarays.model.CategoryRequest;
 import com.alfarays.model.CategoryResponse;
 import com.alfarays.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Reads go through the local category caches; writes publish a CategoryChangedEvent
+ * that refreshes those caches on this and every other replica after commit.
+ */
 @Service
 @RequiredArgsConstructor
 public class CategoryService implements ICategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Transactional
     public CategoryResponse create(CategoryRequest request) {
         Category category = new Category();
         category.setName(request.getName());
         Category saved = categoryRepository.save(category);
-        return CategoryMapper.toResponse(saved);
+
+        CategoryResponse response = CategoryMapper.toResponse(saved);
+        eventPublisher.publishEvent(CategoryChangedEvent.upserted(response));
+        return response;
     }
 
     @Override
+    @Transactional
     public CategoryResponse update(Long id, CategoryRequest request) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found"));
 
         category.setName(request.getName());
-        Category updated = categoryRepository.save(category);
+        // flush so the response, cache entry and event carry the incremented version
+        Category updated = categoryRepository.saveAndFlush(category);
 
-        return CategoryMapper.toResponse(updated);
+        CategoryResponse response = CategoryMapper.toResponse(updated);
+        eventPublisher.publishEvent(CategoryChangedEvent.upserted(response));
+        return response;
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfiguration.CATEGORIES, key = "#id")
     public CategoryResponse get(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found"));
@@ -45,6 +64,7 @@ public class CategoryService implements ICategoryService {
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfiguration.CATEGORY_LIST, key = "'all'")
     public List<CategoryResponse> getAll() {
         return categoryRepository.findAll()
                 .stream()
@@ -53,11 +73,13 @@ public class CategoryService implements ICategoryService {
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
         if (!categoryRepository.existsById(id)) {
             throw new RuntimeException("Category not found");
         }
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(CategoryChangedEvent.deleted(id));
     }
 
 }
@@ -1,15 +1,33 @@
 package com.alfarays.service;
 
+import com.alfarays.model.CatalogVersion;
+import com.alfarays.model.ProductFacetResult;
+import com.alfarays.model.ProductPage;
+import com.alfarays.model.ProductPatchRequest;
 import com.alfarays.model.ProductRequest;
 import com.alfarays.model.ProductResponse;
+import com.alfarays.model.ProductSearchResult;
+import com.alfarays.model.ProductVersion;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface IProductService {
     ProductResponse create(ProductRequest request);
     ProductResponse update(Long id, ProductRequest request);
+    ProductResponse patch(Long id, ProductPatchRequest request);
     ProductResponse get(Long id);
-    List<ProductResponse> getAll();
+    void evict(Long id);
+    Map<Long, ProductResponse> getBatch(Collection<Long> ids);
+    ProductPage getPage(String cursor, int size);
+    ProductPage scan(String cursor, int batchSize);
+    ProductPage scan(Long categoryId, String cursor, int batchSize);
+    ProductVersion getVersion(Long id);
+    CatalogVersion getCatalogVersion();
     void delete(Long id);
-    List<ProductResponse> filter(String name, Long categoryId, String categoryName);
+    List<ProductResponse> filter(String name, Long categoryId, String categoryName, Map<String, Set<String>> specification);
+    ProductSearchResult search(String query, int page, int size);
+    ProductFacetResult facets(Long categoryId, Map<String, Set<String>> specification, int page, int size);
 }
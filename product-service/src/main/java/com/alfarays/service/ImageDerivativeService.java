@@ -0,0 +1,292 @@
+package com.alfarays.service;
+
+import com.alfarays.configuration.ImageDerivativeProperties;
+import com.alfarays.configuration.ImageProcessingConfiguration;
+import com.alfarays.entity.Image;
+import com.alfarays.entity.ImageVariant;
+import com.alfarays.event.ImageStoredEvent;
+import com.alfarays.repository.ImageRepository;
+import com.alfarays.storage.FileDigests;
+import com.alfarays.storage.ImageStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Generates downscaled renditions of uploaded images on a bounded background pool, after the upload
+ * transaction has committed, so request latency does not depend on decoding cost.
+ *
+ * Variants are JPEG at the configured quality (the JDK has no WebP encoder); transparency is flattened
+ * onto white. Large sources are subsampled while decoding so a 40 MP photo never lands on the heap at
+ * full resolution, and sizes at or above the original are skipped rather than upscaled.
+ */
+@Slf4j
+@Service
+public class ImageDerivativeService {
+
+    private static final String VARIANT_FORMAT = "jpeg";
+    private static final String VARIANT_CONTENT_TYPE = "image/jpeg";
+    private static final String VARIANT_EXTENSION = ".jpg";
+    private final ImageRepository imageRepository;
+    private final ImageStorage storage;
+    private final ImageDerivativeProperties properties;
+    private final TaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+
+    public ImageDerivativeService(ImageRepository imageRepository,
+                                  ImageStorage storage,
+                                  ImageDerivativeProperties properties,
+                                  @Qualifier(ImageProcessingConfiguration.DERIVATIVE_EXECUTOR) TaskExecutor executor,
+                                  TransactionTemplate transactionTemplate) {
+        this.imageRepository = imageRepository;
+        this.storage = storage;
+        this.properties = properties;
+        this.executor = executor;
+        this.transactionTemplate = transactionTemplate;
+        ImageIO.setUseCache(false);
+    }
+
+    @TransactionalEventListener
+    public void onImageStored(ImageStoredEvent event) {
+        if (!properties.isEnabled() || properties.getSizes().isEmpty()) return;
+
+        try {
+            executor.execute(() -> generate(event.imageId()));
+        } catch (TaskRejectedException e) {
+            // the original is still served; variants are an optimisation
+            log.warn("Derivative queue full, skipping variants for image id: {}", event.imageId());
+        }
+    }
+
+    void generate(Long imageId) {
+        long started = System.currentTimeMillis();
+        Image image = imageRepository.findById(imageId).orElse(null);
+        if (image == null) return;
+
+        if (reuseVariants(image)) {
+            log.debug("Reused existing variants of identical content for image id: {}", imageId);
+            return;
+        }
+
+        String source = image.getPath();
+        List<ImageVariant> variants = new ArrayList<>();
+        try {
+            Decoded decoded = decode(source, largestSize());
+            if (decoded == null) {
+                log.info("No image reader for image id: {}, skipping variants", imageId);
+                return;
+            }
+
+            // largest first, each rendition scaled down from the previous one
+            BufferedImage previous = decoded.image();
+            List<Map.Entry<String, Integer>> sizes = new ArrayList<>(properties.getSizes().entrySet());
+            sizes.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()));
+
+            for (Map.Entry<String, Integer> size : sizes) {
+                if (size.getValue() >= Math.max(decoded.width(), decoded.height())) continue;
+
+                BufferedImage scaled = scale(previous, size.getValue());
+                variants.add(write(source, size.getKey(), scaled));
+                previous = scaled;
+            }
+        } catch (Exception e) {
+            // variant files are keyed by content and may be shared, so a failed run leaves them for the owner's delete
+            log.error("Failed to generate variants for image id: {}", imageId, e);
+            return;
+        }
+
+        boolean recorded = Boolean.TRUE.equals(transactionTemplate.execute(status -> imageRepository.findById(imageId)
+                .map(current -> {
+                    current.getVariants().clear();
+                    current.getVariants().addAll(variants);
+                    return true;
+                })
+                .orElse(false)));
+
+        if (!recorded) {
+            // image deleted while we were working on it; drop the renditions unless another image uses the file
+            if (image.getContentHash() == null
+                    || imageRepository.countByContentHashAndPath(image.getContentHash(), image.getPath()) == 0) {
+                deleteFiles(variants);
+            }
+            return;
+        }
+        log.info("Generated {} variants for image id: {} in {} ms", variants.size(), imageId, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Stored files are content-addressed, so another image over the same file may already have its
+     * renditions; those files are shared instead of decoding and encoding again
+     */
+    private boolean reuseVariants(Image image) {
+        if (image.getContentHash() == null) return false;
+
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> imageRepository
+                .findFirstByContentHashAndPathAndIdNotAndVariantsIsNotEmpty(image.getContentHash(), image.getPath(), image.getId())
+                .flatMap(sibling -> imageRepository.findById(image.getId()).map(current -> {
+                    current.getVariants().clear();
+                    sibling.getVariants().forEach(variant -> current.getVariants().add(new ImageVariant(
+                            variant.getName(),
+                            variant.getPath(),
+                            variant.getWidth(),
+                            variant.getHeight(),
+                            variant.getSize(),
+                            variant.getContentType(),
+                            variant.getContentHash()
+                    )));
+                    return true;
+                }))
+                .orElse(false)));
+    }
+
+    /**
+     * Storage key a named variant of the given original is stored under, next to the original
+     */
+    static String variantKey(String original, String variant) {
+        return original + "." + variant + VARIANT_EXTENSION;
+    }
+
+    private int largestSize() {
+        return properties.getSizes().values().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    private Decoded decode(String source, int largestSize) throws IOException {
+        Optional<Path> file = storage.localFile(source);
+        if (file.isPresent()) {
+            try (ImageInputStream in = ImageIO.createImageInputStream(file.get().toFile())) {
+                return decode(in, largestSize);
+            }
+        }
+        // remote backends are read as a stream; the reader only buffers what it has consumed
+        try (InputStream stream = storage.open(source, 0, storage.size(source));
+             ImageInputStream in = ImageIO.createImageInputStream(stream)) {
+            return decode(in, largestSize);
+        }
+    }
+
+    private static Decoded decode(ImageInputStream in, int largestSize) throws IOException {
+        if (in == null) return null;
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) return null;
+
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(in, true, true);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+
+            // keep at least twice the largest target so the final downscale still has detail to work with
+            int subsampling = Math.max(1, Math.max(width, height) / (largestSize * 2));
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+            return new Decoded(reader.read(0, param), width, height);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Halves repeatedly with bilinear filtering until the target is reached; a single large bilinear
+     * step would skip most source pixels and alias
+     */
+    private static BufferedImage scale(BufferedImage source, int longestEdge) {
+        int targetWidth;
+        int targetHeight;
+        if (source.getWidth() >= source.getHeight()) {
+            targetWidth = longestEdge;
+            targetHeight = Math.max(1, Math.round((float) source.getHeight() * longestEdge / source.getWidth()));
+        } else {
+            targetHeight = longestEdge;
+            targetWidth = Math.max(1, Math.round((float) source.getWidth() * longestEdge / source.getHeight()));
+        }
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private ImageVariant write(String original, String name, BufferedImage image) throws IOException {
+        String target = variantKey(original, name);
+        Path temp = storage.newTempFile();
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(VARIANT_FORMAT).next();
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(properties.getQuality());
+
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+
+            String contentHash = FileDigests.sha256(temp);
+            long size = Files.size(temp);
+            storage.put(target, temp, VARIANT_CONTENT_TYPE);
+
+            return new ImageVariant(name, target, image.getWidth(), image.getHeight(), size, VARIANT_CONTENT_TYPE, contentHash);
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void deleteFiles(List<ImageVariant> variants) {
+        for (ImageVariant variant : variants) {
+            try {
+                storage.delete(variant.getPath());
+            } catch (IOException e) {
+                log.warn("Failed to delete variant file: {}", variant.getPath(), e);
+            }
+        }
+    }
+
+    private record Decoded(BufferedImage image, int width, int height) {
+    }
+}
@@ -1,32 +1,51 @@
 package com.alfarays.service;
 
-import com.alfarays.configuration.StorageProperties;
+import com.alfarays.configuration.ImageProcessingConfiguration;
 import com.alfarays.entity.Image;
+import com.alfarays.entity.ImageVariant;
+import com.alfarays.entity.Product;
+import com.alfarays.event.ImageStoredEvent;
+import com.alfarays.exception.ResourceNotFoundException;
+import com.alfarays.mapper.ImageMapper;
+import com.alfarays.model.ImageContent;
 import com.alfarays.model.ImageResponse;
 import com.alfarays.repository.ImageRepository;
-import lombok.RequiredArgsConstructor;
+import com.alfarays.storage.ContentReferences;
+import com.alfarays.storage.FileDigests;
+import com.alfarays.storage.FileNames;
+import com.alfarays.storage.ImageStorage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ImageService {
 
     private final ImageRepository imageRepository;
-    private final StorageProperties storageProperties;
+    private final ImageStorage storage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ContentReferences contentReferences;
+    private final TaskExecutor storageExecutor;
 
     @Value("${image.max-size:10485760}") // 10MB default
     private long maxFileSize;
@@ -34,50 +53,68 @@ public class ImageService {
     @Value("${image.allowed-extensions:jpg,jpeg,png,gif,webp}")
     private String allowedExtensions;
 
-    private static final String FILE_SEPARATOR = "_";
+    public static final String ORIGINAL = "original";
+
+    public ImageService(ImageRepository imageRepository,
+                        ImageStorage storage,
+                        ApplicationEventPublisher eventPublisher,
+                        ContentReferences contentReferences,
+                        @Qualifier(ImageProcessingConfiguration.STORAGE_EXECUTOR) TaskExecutor storageExecutor) {
+        this.imageRepository = imageRepository;
+        this.storage = storage;
+        this.eventPublisher = eventPublisher;
+        this.contentReferences = contentReferences;
+        this.storageExecutor = storageExecutor;
+    }
 
     @Transactional
     public Image save(MultipartFile file) {
+        return saveAll(List.of(file), null).get(0);
+    }
 
-        validateFile(file);
+    /**
+     * Writes the uploads to storage concurrently on the shared storage pool, then inserts all their rows
+     * in one flush (JDBC-batched, see hibernate.jdbc.batch_size).
+     *
+     * All or nothing: if any file fails, the files already written are collected again before the error
+     * is rethrown, and a rollback after this returns collects them through their pins.
+     */
+    @Transactional
+    public List<Image> saveAll(List<MultipartFile> files, Product product) {
+        if (files.isEmpty()) return List.of();
+        files.forEach(this::validateFile);
 
         try {
-            // 1. Create upload directory if it doesn't exist
-            Path uploadPath = Paths.get(storageProperties.getUploadDir());
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-                log.info("Created upload directory at: {}", uploadPath);
+            // 1. Publish the uploads to storage under their content hash; identical bytes are stored once
+            List<StoredFile> stored = storeAll(files);
+
+            // 2. Store metadata in the database
+            List<Image> images = new ArrayList<>(stored.size());
+            for (StoredFile file : stored) {
+                String originalFilename = file.upload().getOriginalFilename();
+                Image image = new Image();
+                image.setName(generateSecureFileName(file.contentHash(), originalFilename));
+                image.setOriginalName(originalFilename); // Store original filename separately
+                image.setPath(file.key()); // Storage key, see ImageStorage.contentKey
+                image.setSize(file.upload().getSize());
+                image.setContentType(FileNames.contentType(FileNames.extension(originalFilename)));
+                image.setFileExtension(FileNames.extension(originalFilename)); // Store file extension for validation
+                image.setContentHash(file.contentHash());
+                image.setProduct(product);
+                images.add(image);
             }
 
-            // 2. Generate a secure filename and save the file
-            String originalFilename = file.getOriginalFilename();
-            String fileName = generateSecureFileName(originalFilename);
-            Path filePath = uploadPath.resolve(fileName);
-
-            // 3. Save the file to disk
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // 4. Store metadata in the database
-            Image image = new Image();
-            image.setName(fileName);
-            image.setOriginalName(originalFilename); // Store original filename separately
-            image.setPath(filePath.toString());
-            image.setSize(file.getSize());
-            image.setContentType(file.getContentType());
-            image.setFileExtension(getFileExtension(originalFilename)); // Store file extension for validation
+            List<Image> saved = imageRepository.saveAll(images);
+            saved.forEach(image -> eventPublisher.publishEvent(new ImageStoredEvent(image.getId())));
 
-            Image saved = imageRepository.save(image);
+            log.info("Images uploaded successfully: count={}, size={}", saved.size(),
+                    files.stream().mapToLong(MultipartFile::getSize).sum());
 
-            log.info("Image uploaded successfully: id={}, name={}, size={}", saved.getId(), fileName, file.getSize());
-
-            // 5. Return saved image metadata
+            // 3. Return saved image metadata
             return saved;
 
-        } catch (IOException ioEx) {
-            log.error("IO error while uploading image: {}", ioEx.getMessage(), ioEx);
-            throw new RuntimeException("Error saving image file: " + ioEx.getMessage(), ioEx);
         } catch (Exception ex) {
-            log.error("Unexpected error uploading image: {}", ex.getMessage(), ex);
+            log.error("Unexpected error uploading images: {}", ex.getMessage(), ex);
             throw new RuntimeException("Error uploading image: " + ex.getMessage(), ex);
         }
     }
@@ -95,14 +132,79 @@ public class ImageService {
                     return new RuntimeException("Image not found with id: " + id);
                 });
 
-        return mapToResponse(image);
+        return ImageMapper.toResponse(image);
+    }
+
+    /**
+     * Resolves the stored file behind an image, or one of its named variants, for download
+     */
+    @Transactional(readOnly = true)
+    public ImageContent getContent(Long id, String variant) {
+        Image image = findForDownload(id);
+        if (ORIGINAL.equals(variant)) return original(image);
+
+        return image.getVariants().stream()
+                .filter(candidate -> candidate.getName().equals(variant))
+                .findFirst()
+                .map(match -> variant(image, match))
+                .orElseThrow(() -> new ResourceNotFoundException("Image variant", "name", variant));
+    }
+
+    /**
+     * Smallest variant at least {@code width} pixels wide; the original when none is (or none exist yet)
+     */
+    @Transactional(readOnly = true)
+    public ImageContent getBestFit(Long id, int width) {
+        Image image = findForDownload(id);
+        return image.getVariants().stream()
+                .filter(candidate -> candidate.getWidth() != null && candidate.getWidth() >= width)
+                .min(Comparator.comparing(ImageVariant::getWidth))
+                .map(match -> variant(image, match))
+                .orElseGet(() -> original(image));
+    }
+
+    private Image findForDownload(Long id) {
+        return imageRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Image", "id", String.valueOf(id)));
+    }
+
+    private ImageContent original(Image image) {
+        String contentType = image.getContentType() != null ? image.getContentType() : "application/octet-stream";
+        return content(image.getId(), ORIGINAL, image.getPath(), contentType, image.getContentHash());
+    }
+
+    private ImageContent variant(Image image, ImageVariant variant) {
+        return content(image.getId(), variant.getName(), variant.getPath(), variant.getContentType(), variant.getContentHash());
+    }
+
+    private ImageContent content(Long id, String variant, String key, String contentType, String contentHash) {
+        try {
+            return new ImageContent(id, variant, key, contentType, storage.size(key), contentHash);
+        } catch (IOException ioEx) {
+            log.warn("Image file not readable from storage: id={}, variant={}, key={}", id, variant, key);
+            throw new ResourceNotFoundException("Image file", "id", String.valueOf(id));
+        }
+    }
+
+    /**
+     * Local file behind resolved content, when the storage backend keeps one
+     */
+    public Optional<Path> localFile(ImageContent content) {
+        return storage.localFile(content.key());
+    }
+
+    /**
+     * Stream over a byte range of resolved content
+     */
+    public InputStream open(ImageContent content, long start, long count) throws IOException {
+        return storage.open(content.key(), start, count);
     }
 
     public List<ImageResponse> getAll() {
 
         try {
             List<ImageResponse> responses = imageRepository.findAll().stream()
-                    .map(this::mapToResponse)
+                    .map(ImageMapper::toResponse)
                     .collect(Collectors.toList());
 
             log.debug("Retrieved {} images from database", responses.size());
@@ -127,29 +229,162 @@ public class ImageService {
                     return new RuntimeException("Image not found with id: " + id);
                 });
 
+        deleteAll(List.of(image));
+    }
+
+    /**
+     * Removes the rows in one flush (JDBC-batched) and, once committed, collects their files on the
+     * storage pool, one task per image
+     */
+    @Transactional
+    public void deleteAll(Collection<Image> images) {
+        if (images.isEmpty()) return;
+
         try {
-            // 1. Delete the physical file from the directory
-            Path filePath = Paths.get(image.getPath());
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
-                log.info("Image file deleted: {}", filePath);
-            } else {
-                log.warn("Image file not found on disk: {}", filePath);
+            // 1. Delete the database records
+            List<Runnable> collections = new ArrayList<>(images.size());
+            for (Image image : images) {
+                List<String> keys = new ArrayList<>();
+                keys.add(image.getPath());
+                image.getVariants().forEach(variant -> keys.add(variant.getPath()));
+                String contentHash = image.getContentHash();
+                String path = image.getPath();
+                collections.add(() -> collect(contentHash, path, keys));
             }
 
-            // 2. Delete the database record
-            imageRepository.deleteById(id);
-            log.info("Image record deleted from database: id={}", id);
+            imageRepository.deleteAll(images);
+            log.info("Image records deleted from database: count={}", images.size());
+
+            // 2. Delete the files once committed, and only if no other image shares them
+            contentReferences.afterCommit(() -> collections.forEach(storageExecutor::execute));
 
-        } catch (IOException ioEx) {
-            log.error("IO error while deleting image file: {}", ioEx.getMessage(), ioEx);
-            throw new RuntimeException("Error deleting image file: " + ioEx.getMessage(), ioEx);
         } catch (Exception ex) {
-            log.error("Error deleting image: {}", ex.getMessage(), ex);
+            log.error("Error deleting images: {}", ex.getMessage(), ex);
             throw new RuntimeException("Error deleting image: " + ex.getMessage(), ex);
         }
     }
 
+    /**
+     * Content hash of an upload, for matching it against stored images without storing it
+     */
+    public String hash(MultipartFile file) {
+        if (file == null || file.isEmpty()) return null;
+        try (InputStream in = file.getInputStream()) {
+            return FileDigests.sha256(in);
+        } catch (IOException ioEx) {
+            throw new RuntimeException("Error reading image file: " + ioEx.getMessage(), ioEx);
+        }
+    }
+
+    /**
+     * Stores every upload on the storage pool and waits for all of them, so nothing is still landing
+     * when a failure is compensated. Pins taken by the workers are handed to the calling transaction.
+     */
+    private List<StoredFile> storeAll(List<MultipartFile> files) {
+        List<CompletableFuture<StoredFile>> pending = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> store(file), storageExecutor))
+                .toList();
+
+        List<StoredFile> stored = new ArrayList<>(files.size());
+        RuntimeException failure = null;
+        for (CompletableFuture<StoredFile> future : pending) {
+            try {
+                stored.add(future.join());
+            } catch (CompletionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtime ? runtime : e;
+                if (failure == null) failure = cause;
+                else failure.addSuppressed(cause);
+            }
+        }
+
+        if (failure != null) {
+            log.warn("Storing {} of {} images failed, removing the {} already written",
+                    files.size() - stored.size(), files.size(), stored.size());
+            for (StoredFile file : stored) {
+                contentReferences.unpin(file.contentHash());
+                collect(file.contentHash(), file.key(), List.of(file.key()));
+            }
+            throw failure;
+        }
+
+        for (StoredFile file : stored) {
+            contentReferences.releaseOnCompletion(file.contentHash(),
+                    hash -> collect(hash, file.key(), List.of(file.key())));
+        }
+        return stored;
+    }
+
+    /**
+     * Spools the upload into a local temp file, hashes it and publishes it under its content key, so
+     * readers never see a partial file. When the same bytes are already stored the temp file is simply
+     * dropped. The hash stays pinned for the caller to release.
+     *
+     * With local storage, transferTo(File) goes through Part.write, which renames the container's
+     * multipart temp file when it sits on the same filesystem (see spring.servlet.multipart.location)
+     * instead of copying it; the hash is then a single sequential read through a direct buffer.
+     */
+    private StoredFile store(MultipartFile file) {
+        Path tempPath = null;
+        String pinned = null;
+        try {
+            tempPath = storage.newTempFile();
+            file.transferTo(tempPath.toFile());
+            String contentHash = FileDigests.sha256(tempPath);
+            String key = ImageStorage.contentKey(contentHash, FileNames.extension(file.getOriginalFilename()).toLowerCase());
+
+            // pinned so a concurrent delete of the last other reference keeps the file
+            contentReferences.pin(contentHash);
+            pinned = contentHash;
+            Path source = tempPath;
+            contentReferences.withLock(contentHash, () -> {
+                if (storage.exists(key)) {
+                    log.debug("Content already stored, reusing: {}", key);
+                    Files.delete(source);
+                } else {
+                    storage.put(key, source, FileNames.contentType(FileNames.extension(file.getOriginalFilename())));
+                }
+            });
+            return new StoredFile(file, contentHash, key);
+        } catch (IOException | RuntimeException ex) {
+            if (pinned != null) contentReferences.unpin(pinned);
+            try {
+                if (tempPath != null) Files.deleteIfExists(tempPath);
+            } catch (IOException cleanupEx) {
+                log.warn("Failed to remove temp upload: {}", tempPath, cleanupEx);
+            }
+            if (ex instanceof IOException ioEx) {
+                throw new UncheckedIOException("Error saving image file " + file.getOriginalFilename() + ": " + ioEx.getMessage(), ioEx);
+            }
+            throw (RuntimeException) ex;
+        }
+    }
+
+    /**
+     * Removes stored files once no committed image references them and no upload of the same bytes
+     * is in flight. Images stored before content addressing own their files outright.
+     */
+    private void collect(String contentHash, String path, List<String> keys) {
+        try {
+            if (contentHash == null) {
+                deleteFiles(keys);
+                return;
+            }
+            contentReferences.withLock(contentHash, () -> {
+                if (contentReferences.isPinned(contentHash)) return;
+                if (imageRepository.countByContentHashAndPath(contentHash, path) > 0) return;
+                deleteFiles(keys);
+            });
+        } catch (IOException ioEx) {
+            log.error("IO error while deleting image files {}: {}", keys, ioEx.getMessage(), ioEx);
+        }
+    }
+
+    private void deleteFiles(List<String> keys) throws IOException {
+        for (String key : keys) {
+            storage.delete(key);
+        }
+    }
+
     private void validateFile(MultipartFile file) {
         if (file == null) throw new IllegalArgumentException("File cannot be null");
         if (file.isEmpty()) throw new IllegalArgumentException("File cannot be empty");
@@ -159,51 +394,22 @@ public class ImageService {
 
         if (file.getSize() > maxFileSize) throw new IllegalArgumentException("File size exceeds maximum allowed size of " + maxFileSize + " bytes");
 
-        String fileExtension = getFileExtension(originalFilename).toLowerCase();
-        if (!isAllowedExtension(fileExtension)) throw new IllegalArgumentException("File type not allowed. Allowed types: " + allowedExtensions);
+        String fileExtension = FileNames.extension(originalFilename).toLowerCase();
+        if (!FileNames.isAllowedExtension(fileExtension, allowedExtensions)) throw new IllegalArgumentException("File type not allowed. Allowed types: " + allowedExtensions);
         log.debug("File validation passed: name={}, size={}", originalFilename, file.getSize());
     }
 
-    private String generateSecureFileName(String originalFilename) {
-        // Remove path traversal attempts
-        String sanitized = originalFilename.replaceAll("[\\\\/:]", "");
-
-        // Generate unique filename
-        String uuid = UUID.randomUUID().toString();
-        String extension = getFileExtension(originalFilename);
-
-        String secureFileName = uuid + FILE_SEPARATOR + sanitized;
+    /**
+     * Content-addressed name: the SHA-256 of the bytes plus the validated extension. Nothing from the
+     * client-supplied name beyond its extension reaches the filesystem.
+     */
+    private String generateSecureFileName(String contentHash, String originalFilename) {
+        String secureFileName = FileNames.secureName(contentHash, originalFilename);
         log.debug("Generated secure filename: {} from: {}", secureFileName, originalFilename);
 
         return secureFileName;
     }
 
-    private String getFileExtension(String filename) {
-        if (filename == null || !filename.contains(".")) {
-            return "";
-        }
-        return filename.substring(filename.lastIndexOf(".") + 1);
-    }
-
-    private boolean isAllowedExtension(String extension) {
-        String[] allowed = allowedExtensions.toLowerCase().split(",");
-        for (String ext : allowed) {
-            if (ext.trim().equalsIgnoreCase(extension)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private ImageResponse mapToResponse(Image image) {
-        ImageResponse response = new ImageResponse();
-        response.setId(image.getId());
-        response.setName(image.getName());
-        response.setOriginalName(image.getOriginalName());
-        response.setPath(image.getPath());
-        response.setSize(image.getSize());
-        response.setContentType(image.getContentType());
-        // Optionally, include uploadedAt or other metadata here
-        return response;
+    private record StoredFile(MultipartFile upload, String contentHash, String key) {
     }
 }
@@ -0,0 +1,258 @@
+package com.alfarays.service;
+
+import com.alfarays.bulk.BulkFormat;
+import com.alfarays.bulk.CsvProductReader;
+import com.alfarays.bulk.CsvProductWriter;
+import com.alfarays.bulk.NdjsonProductReader;
+import com.alfarays.bulk.ProductRecord;
+import com.alfarays.bulk.ProductRecordReader;
+import com.alfarays.bulk.SequenceBlocks;
+import com.alfarays.entity.Category;
+import com.alfarays.event.ProductChangedEvent;
+import com.alfarays.mapper.CategoryMapper;
+import com.alfarays.model.ImportReport;
+import com.alfarays.model.ProductPage;
+import com.alfarays.model.ProductResponse;
+import com.alfarays.repository.CategoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import and export for supplier catalog onboarding
+ *
+ * Imports stream the request body row by row and write in JDBC batches (product.import.batch-size),
+ * one transaction per batch, with the ids for a batch reserved from product_sequence in a single
+ * round trip. Rows that fail validation are reported by line and skipped; the rest of their batch is
+ * still written. Images are not part of the bulk formats.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductBulkService {
+
+    private static final String PRODUCT_SEQUENCE = "product_sequence";
+    private static final int MAX_LENGTH = 255;
+
+    private static final String INSERT_PRODUCT =
+            "insert into products (id, name, version, category_id, specification, created_at, created_by) values (?, ?, 0, ?, ?, ?, ?)";
+    private static final String SPECIFICATION_KEYS =
+            "select distinct k.spec_key from products p, " +
+                    "json_table(json_keys(p.specification), '$[*]' columns (spec_key varchar(255) path '$')) k " +
+                    "order by k.spec_key";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SequenceBlocks sequenceBlocks;
+    private final CategoryRepository categoryRepository;
+    private final IProductService productService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuditorAware<String> auditorAware;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${product.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Value("${product.stream.batch-size:500}")
+    private int exportBatchSize;
+
+    public ImportReport importProducts(InputStream input, BulkFormat format) throws IOException {
+        long started = System.currentTimeMillis();
+        ImportReport report = new ImportReport(0, 0, 0, new ArrayList<>(), false);
+
+        try (ProductRecordReader reader = reader(input, format)) {
+            List<ProductRecord> batch = new ArrayList<>(batchSize);
+            ProductRecord record;
+            while ((record = reader.next()) != null) {
+                String problem = record.isValid() ? validate(record) : record.error();
+                if (problem != null) {
+                    reject(report, record.line(), problem);
+                    continue;
+                }
+
+                batch.add(record);
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, report);
+                    batch.clear();
+                }
+            }
+            writeBatch(batch, report);
+        }
+
+        report.setDurationMs(System.currentTimeMillis() - started);
+        log.info("Imported {} products ({} rejected) from {} in {} ms",
+                report.getImported(), report.getFailed(), format, report.getDurationMs());
+        return report;
+    }
+
+    /**
+     * Streams every product in id order, reading keyset pages so memory stays flat
+     */
+    public void export(OutputStream output, BulkFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        ObjectWriter json = objectMapper.writerFor(ProductResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        CsvProductWriter csv = null;
+        if (format == BulkFormat.CSV) {
+            csv = new CsvProductWriter(writer, jdbcTemplate.queryForList(SPECIFICATION_KEYS, String.class));
+            csv.writeHeader();
+        }
+
+        String cursor = null;
+        do {
+            ProductPage page = productService.scan(cursor, exportBatchSize);
+            for (ProductResponse product : page.getContent()) {
+                if (csv != null) {
+                    csv.write(product);
+                } else {
+                    json.writeValue(writer, product);
+                    writer.write('\n');
+                }
+            }
+            writer.flush();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+
+    private ProductRecordReader reader(InputStream input, BulkFormat format) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        return switch (format) {
+            case NDJSON -> new NdjsonProductReader(reader, objectMapper.reader());
+            case CSV -> new CsvProductReader(reader);
+        };
+    }
+
+    private static String validate(ProductRecord record) {
+        if (record.name() == null || record.name().trim().isEmpty()) return "Product name cannot be empty";
+        if (record.name().length() > MAX_LENGTH) return "Product name longer than " + MAX_LENGTH + " characters";
+        if (record.categoryId() == null) return "Category ID cannot be null";
+
+        for (Map.Entry<String, String> entry : record.specification().entrySet()) {
+            if (entry.getKey().isBlank()) return "Specification key cannot be empty";
+            if (entry.getKey().length() > MAX_LENGTH || entry.getValue().length() > MAX_LENGTH) {
+                return "Specification " + entry.getKey() + " longer than " + MAX_LENGTH + " characters";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes one batch in its own transaction; on a database error the whole batch is reported as failed
+     */
+    private void writeBatch(List<ProductRecord> batch, ImportReport report) throws JsonProcessingException {
+        if (batch.isEmpty()) return;
+
+        Set<Long> categoryIds = batch.stream().map(ProductRecord::categoryId).collect(Collectors.toSet());
+        Map<Long, Category> categories = categoryRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        List<ProductRecord> rows = new ArrayList<>(batch.size());
+        for (ProductRecord record : batch) {
+            if (categories.containsKey(record.categoryId())) {
+                rows.add(record);
+            } else {
+                reject(report, record.line(), "Category not found with id: " + record.categoryId());
+            }
+        }
+        if (rows.isEmpty()) return;
+
+        long firstId = sequenceBlocks.reserve(PRODUCT_SEQUENCE, rows.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditorAware.getCurrentAuditor().orElse(null);
+
+        List<String> specifications = new ArrayList<>(rows.size());
+        for (ProductRecord row : rows) {
+            specifications.add(objectMapper.writeValueAsString(row.specification()));
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_PRODUCT, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ProductRecord row = rows.get(i);
+                        ps.setLong(1, firstId + i);
+                        ps.setString(2, row.name());
+                        ps.setLong(3, row.categoryId());
+                        ps.setString(4, specifications.get(i));
+                        ps.setTimestamp(5, now);
+                        ps.setString(6, auditor);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+
+                // caches, search indexes and other replicas pick the rows up after commit, as for single writes
+                for (int i = 0; i < rows.size(); i++) {
+                    ProductRecord row = rows.get(i);
+                    eventPublisher.publishEvent(ProductChangedEvent.upserted(
+                            toResponse(firstId + i, row, categories.get(row.categoryId()))));
+                }
+            });
+            report.setImported(report.getImported() + rows.size());
+        } catch (DataAccessException e) {
+            log.warn("Import batch of {} rows starting at line {} failed", rows.size(), rows.get(0).line(), e);
+            String message = "Batch rejected by the database: " + e.getMostSpecificCause().getMessage();
+            rows.forEach(row -> reject(report, row.line(), message));
+        }
+    }
+
+    private static ProductResponse toResponse(long id, ProductRecord row, Category category) {
+        ProductResponse response = new ProductResponse();
+        response.setId(id);
+        response.setName(row.name());
+        response.setVersion(0L);
+        response.setSpecification(new HashMap<>(row.specification()));
+        response.setCategory(CategoryMapper.toResponse(category));
+        response.setImages(List.of());
+        return response;
+    }
+
+    private void reject(ImportReport report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new ImportReport.RowError(line, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+}
@@ -1,23 +1,54 @@
 package com.alfarays.service;
 
+import com.alfarays.configuration.CacheConfiguration;
 import com.alfarays.entity.Category;
 import com.alfarays.entity.Image;
 import com.alfarays.entity.Product;
+import com.alfarays.event.ProductChangedEvent;
 import com.alfarays.mapper.ProductMapper;
+import com.alfarays.model.CatalogVersion;
+import com.alfarays.model.ProductFacetResult;
+import com.alfarays.model.ProductPage;
+import com.alfarays.model.ProductPatchRequest;
 import com.alfarays.model.ProductRequest;
 import com.alfarays.model.ProductResponse;
+import com.alfarays.model.ProductSearchResult;
+import com.alfarays.model.ProductVersion;
+import com.alfarays.pagination.CursorCodec;
 import com.alfarays.repository.CategoryRepository;
 import com.alfarays.repository.ProductRepository;
+import com.alfarays.search.FacetHits;
+import com.alfarays.search.ProductFacetIndex;
+import com.alfarays.search.ProductSearchIndex;
+import com.alfarays.search.SearchHits;
+import com.alfarays.specification.ProductSpecification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -34,6 +65,23 @@ public class ProductService implements IProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ImageService imageService;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final CatalogRevisionService catalogRevisionService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${product.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${product.batch.max-ids:200}")
+    private int maxBatchIds;
+
+    @Value("${product.facets.values-per-key:20}")
+    private int facetValuesPerKey;
 
     @Override
     @Transactional
@@ -52,39 +100,28 @@ public class ProductService implements IProductService {
 
         Product product = new Product();
         product.setName(request.getName());
-        product.setSpecification(request.getSpecification());
+        product.setSpecification(request.getSpecification() != null ? new HashMap<>(request.getSpecification()) : new HashMap<>());
         product.setCategory(category);
 
+        // Persist the product first so the image rows can be inserted with their foreign key in one batch
+        Product saved = productRepository.save(product);
+
         if (request.getImages() != null && request.getImages().length > 0) {
-            Set<Image> uploadedImages = new HashSet<>();
-
-            for (MultipartFile file : request.getImages()) {
-                try {
-                    Image image = imageService.save(file);
-                    image.setProduct(product);
-                    uploadedImages.add(image);
-                    log.debug("Uploaded image: {}", file.getOriginalFilename());
-                } catch (Exception e) {
-                    log.error("Failed to upload image: {}", file.getOriginalFilename(), e);
-                    // Rollback uploaded images if any fail
-                    uploadedImages.forEach(img -> {
-                        try {
-                            imageService.delete(img.getId());
-                        } catch (Exception rollbackEx) {
-                            log.error("Failed to rollback image: {}", img.getId(), rollbackEx);
-                        }
-                    });
-                    throw new RuntimeException("Failed to upload images during product creation", e);
-                }
+            try {
+                saved.getImages().addAll(imageService.saveAll(Arrays.asList(request.getImages()), saved));
+            } catch (Exception e) {
+                // files already written are removed by ImageService, and on rollback through their pins
+                log.error("Failed to upload images for product: {}", request.getName(), e);
+                throw new RuntimeException("Failed to upload images during product creation", e);
             }
-
-            product.setImages(uploadedImages);
-            log.info("Associated {} images to product", uploadedImages.size());
+            log.info("Associated {} images to product", saved.getImages().size());
         }
 
-        Product saved = productRepository.save(product);
         log.info("Product created successfully with id: {}", saved.getId());
-        return ProductMapper.toResponse(saved);
+
+        ProductResponse response = ProductMapper.toResponse(saved);
+        eventPublisher.publishEvent(ProductChangedEvent.upserted(response));
+        return response;
     }
 
     @Override
@@ -94,75 +131,203 @@ public class ProductService implements IProductService {
 
         validateProductRequest(request);
 
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findForUpdateById(id)
                 .orElseThrow(() -> {
                     log.error("Product not found with id: {}", id);
                     return new IllegalArgumentException("Product not found with id: " + id);
                 });
 
         product.setName(request.getName());
-        product.setSpecification(request.getSpecification());
+        syncSpecification(specificationOf(product), request.getSpecification());
+        changeCategory(product, request.getCategoryId());
+
+        // Keep the listed images, and any whose bytes were uploaded again
+        List<MultipartFile> uploads = new ArrayList<>();
+        Set<Image> retained = retainUnchanged(product.getImages(), request.getImages(), uploads);
+        if (request.getRetainImageIds() != null) {
+            retained.addAll(imagesById(product, request.getRetainImageIds()));
+        }
+        replaceImages(product, retained, uploads);
 
-        // Update category
-        Category category = categoryRepository.findById(request.getCategoryId())
+        // flush so the response (and its ETag version) reflects the row as committed
+        Product updated = productRepository.saveAndFlush(product);
+        log.info("Product updated successfully with id: {}", updated.getId());
+
+        ProductResponse response = ProductMapper.toResponse(updated);
+        eventPublisher.publishEvent(ProductChangedEvent.upserted(response));
+        return response;
+    }
+
+    /**
+     * Partial update: only supplied fields change, specification entries are merged and images are
+     * added or removed individually, so an untouched product collection is never rewritten
+     */
+    @Override
+    @Transactional
+    public ProductResponse patch(Long id, ProductPatchRequest request) {
+        log.info("Patching product with id: {}", id);
+
+        if (request == null) throw new IllegalArgumentException("Product request cannot be null");
+        if (request.getName() != null && request.getName().trim().isEmpty())
+            throw new IllegalArgumentException("Product name cannot be empty");
+
+        Product product = productRepository.findForUpdateById(id)
                 .orElseThrow(() -> {
-                    log.error("Category not found with id: {}", request.getCategoryId());
-                    return new IllegalArgumentException("Category not found with id: " + request.getCategoryId());
+                    log.error("Product not found with id: {}", id);
+                    return new IllegalArgumentException("Product not found with id: " + id);
+                });
+
+        if (request.getName() != null) product.setName(request.getName());
+        if (request.getCategoryId() != null) changeCategory(product, request.getCategoryId());
+        if (request.getSpecification() != null) mergeSpecification(specificationOf(product), request.getSpecification());
+
+        Set<Image> retained = new HashSet<>(product.getImages());
+        if (request.getRemoveImageIds() != null) {
+            retained.removeAll(imagesById(product, request.getRemoveImageIds()));
+        }
+
+        // Uploads identical to an image that stays are not stored twice
+        List<MultipartFile> uploads = new ArrayList<>();
+        retainUnchanged(retained, request.getImages(), uploads);
+        replaceImages(product, retained, uploads);
+
+        Product updated = productRepository.saveAndFlush(product);
+        log.info("Product patched successfully with id: {}", updated.getId());
+
+        ProductResponse response = ProductMapper.toResponse(updated);
+        eventPublisher.publishEvent(ProductChangedEvent.upserted(response));
+        return response;
+    }
+
+    /**
+     * Loads the category only when it actually changes
+     */
+    private void changeCategory(Product product, Long categoryId) {
+        if (product.getCategory() != null && categoryId.equals(product.getCategory().getId())) return;
+
+        Category category = categoryRepository.findById(categoryId)
+                .orElseThrow(() -> {
+                    log.error("Category not found with id: {}", categoryId);
+                    return new IllegalArgumentException("Category not found with id: " + categoryId);
                 });
         product.setCategory(category);
+    }
+
+    /**
+     * Edits the map in place so an unchanged specification leaves the row clean and the version as it is
+     */
+    private static void syncSpecification(Map<String, String> current, Map<String, String> target) {
+        Map<String, String> wanted = target != null ? target : Map.of();
+        current.keySet().retainAll(wanted.keySet());
+        wanted.forEach((key, value) -> {
+            if (!Objects.equals(current.get(key), value)) current.put(key, value);
+        });
+    }
+
+    /**
+     * Rows written before the specification column existed hold NULL until SpecificationSchema backfills them
+     */
+    private static Map<String, String> specificationOf(Product product) {
+        if (product.getSpecification() == null) product.setSpecification(new HashMap<>());
+        return product.getSpecification();
+    }
+
+    /**
+     * Merge-patch semantics: a null value removes the key, anything else sets it
+     */
+    private static void mergeSpecification(Map<String, String> current, Map<String, String> changes) {
+        changes.forEach((key, value) -> {
+            if (value == null) {
+                current.remove(key);
+            } else if (!value.equals(current.get(key))) {
+                current.put(key, value);
+            }
+        });
+    }
 
+    private static Set<Image> imagesById(Product product, Long[] ids) {
+        Set<Long> wanted = new HashSet<>(Arrays.asList(ids));
+        Set<Image> images = product.getImages().stream()
+                .filter(image -> wanted.contains(image.getId()))
+                .collect(Collectors.toSet());
+
+        if (images.size() != wanted.size()) {
+            wanted.removeAll(images.stream().map(Image::getId).collect(Collectors.toSet()));
+            throw new IllegalArgumentException("Images " + wanted + " do not belong to product " + product.getId());
+        }
+        return images;
+    }
+
+    /**
+     * Applies the image delta: removes current images not in {@code retained} and uploads {@code uploads}.
+     * Image owns the association, so a changed image set bumps the product version explicitly.
+     */
+    private void replaceImages(Product product, Set<Image> retained, List<MultipartFile> uploads) {
         Set<Image> oldImages = new HashSet<>(product.getImages());
+        oldImages.removeAll(retained);
 
-        // Remove old images and delete from filesystem
-        for (Image oldImage : oldImages) {
+        // Remove replaced images; their files go once nothing references the content
+        if (!oldImages.isEmpty()) {
             try {
-                imageService.delete(oldImage.getId());
-                log.debug("Deleted old image with id: {}", oldImage.getId());
+                imageService.deleteAll(oldImages);
+                log.debug("Deleted {} old images", oldImages.size());
             } catch (Exception e) {
-                log.error("Failed to delete old image with id: {}", oldImage.getId(), e);
+                log.error("Failed to delete old images of product with id: {}", product.getId(), e);
                 throw new RuntimeException("Failed to delete old image during update", e);
             }
+            product.getImages().removeAll(oldImages);
         }
-        product.getImages().clear();
 
         // Upload and associate new images
-        if (request.getImages() != null && request.getImages().length > 0) {
-            Set<Image> newImages = new HashSet<>();
-
-            for (MultipartFile file : request.getImages()) {
-                try {
-                    Image image = imageService.save(file);
-                    image.setProduct(product);
-                    newImages.add(image);
-                    log.debug("Uploaded new image: {}", file.getOriginalFilename());
-                } catch (Exception e) {
-                    log.error("Failed to upload image: {}", file.getOriginalFilename(), e);
-                    // Rollback new uploaded images on failure
-                    newImages.forEach(img -> {
-                        try {
-                            imageService.delete(img.getId());
-                        } catch (Exception rollbackEx) {
-                            log.error("Failed to rollback image: {}", img.getId(), rollbackEx);
-                        }
-                    });
-                    throw new RuntimeException("Failed to upload new images during product update", e);
-                }
+        if (!uploads.isEmpty()) {
+            try {
+                product.getImages().addAll(imageService.saveAll(uploads, product));
+            } catch (Exception e) {
+                log.error("Failed to upload new images for product with id: {}", product.getId(), e);
+                throw new RuntimeException("Failed to upload new images during product update", e);
             }
+        }
+        log.info("Associated {} new images to product, removed {}, kept {} unchanged",
+                uploads.size(), oldImages.size(), product.getImages().size() - uploads.size());
 
-            product.setImages(newImages);
-            log.info("Associated {} new images to product", newImages.size());
+        if (!oldImages.isEmpty() || !uploads.isEmpty()) {
+            entityManager.lock(product, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
         }
+    }
 
-        Product updated = productRepository.save(product);
-        log.info("Product updated successfully with id: {}", updated.getId());
-        return ProductMapper.toResponse(updated);
+    /**
+     * Matches uploaded files to current images by content hash; matched images are returned, the rest
+     * of the files are added to {@code uploads}
+     */
+    private Set<Image> retainUnchanged(Set<Image> current, MultipartFile[] files, List<MultipartFile> uploads) {
+        Set<Image> retained = new HashSet<>();
+        if (files == null) return retained;
+
+        Map<String, Image> byHash = new HashMap<>();
+        for (Image image : current) {
+            if (image.getContentHash() != null) byHash.putIfAbsent(image.getContentHash(), image);
+        }
+
+        for (MultipartFile file : files) {
+            Image match = byHash.isEmpty() ? null : byHash.remove(imageService.hash(file));
+            if (match != null) {
+                retained.add(match);
+            } else {
+                uploads.add(file);
+            }
+        }
+        return retained;
     }
 
+    /**
+     * Read-through the local product cache; create/update/delete write through to it after commit
+     */
     @Override
+    @Cacheable(cacheNames = CacheConfiguration.PRODUCTS, key = "#id")
     @Transactional(readOnly = true)
     public ProductResponse get(Long id) {
         log.info("Fetching product with id: {}", id);
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findWithDetailsById(id)
                 .orElseThrow(() -> {
                     log.error("Product not found with id: {}", id);
                     return new IllegalArgumentException("Product not found with id: " + id);
@@ -171,14 +336,120 @@ public class ProductService implements IProductService {
         return ProductMapper.toResponse(product);
     }
 
+    /**
+     * Drops this replica's cached copy, for when it turns out older than the database
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.PRODUCTS, key = "#id")
+    public void evict(Long id) {
+        log.debug("Evicting stale cached product id: {}", id);
+    }
+
+    /**
+     * Several products by id for service-to-service callers: served from the product cache where
+     * possible, the rest read in one projection query and cached. Unknown ids are left out of the map.
+     */
     @Override
     @Transactional(readOnly = true)
-    public List<ProductResponse> getAll() {
-        log.info("Fetching all products");
-        return productRepository.findAll()
-                .stream()
+    public Map<Long, ProductResponse> getBatch(Collection<Long> ids) {
+        if (ids == null) throw new IllegalArgumentException("Product ids cannot be null");
+        Set<Long> wanted = ids.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (wanted.size() > maxBatchIds) {
+            throw new IllegalArgumentException("At most " + maxBatchIds + " product ids per batch");
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfiguration.PRODUCTS);
+        Map<Long, ProductResponse> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : wanted) {
+            ProductResponse cached = cache != null ? cache.get(id, ProductResponse.class) : null;
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (ProductResponse product : ProductMapper.toResponses(productRepository.findRows(ProductSpecification.byIds(missing)))) {
+                found.put(product.getId(), product);
+                // an entry written by a change event meanwhile is at least as new as this read
+                if (cache != null) cache.putIfAbsent(product.getId(), product);
+            }
+        }
+        log.debug("Batch of {} product ids: {} cached, {} loaded", wanted.size(), wanted.size() - missing.size(), missing.size());
+
+        // request order, so callers and logs see the ids as they sent them
+        Map<Long, ProductResponse> products = new LinkedHashMap<>();
+        wanted.forEach(id -> {
+            ProductResponse product = found.get(id);
+            if (product != null) products.put(id, product);
+        });
+        return products;
+    }
+
+    /**
+     * Keyset pagination over the product id, capped at product.page.max-size
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPage getPage(String cursor, int size) {
+        return readPage(null, cursor, Math.max(1, Math.min(size, maxPageSize)));
+    }
+
+    /**
+     * Same keyset walk for internal callers (streaming, export, index rebuilds), which size their own
+     * batches and are not bound by the public page cap; a category id restricts it to that category
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPage scan(String cursor, int batchSize) {
+        return readPage(null, cursor, Math.max(1, batchSize));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPage scan(Long categoryId, String cursor, int batchSize) {
+        return readPage(categoryId, cursor, Math.max(1, batchSize));
+    }
+
+    /**
+     * Fetches one extra row to know whether another page exists, so no count query is needed
+     */
+    private ProductPage readPage(Long categoryId, String cursor, int pageSize) {
+        long afterId = CursorCodec.decode(cursor);
+        log.debug("Fetching product page after id: {}, size: {}, category: {}", afterId, pageSize, categoryId);
+
+        List<Product> products = categoryId == null
+                ? productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1))
+                : productRepository.findByCategoryIdAndIdGreaterThanOrderByIdAsc(categoryId, afterId, Limit.of(pageSize + 1));
+        boolean hasNext = products.size() > pageSize;
+        if (hasNext) {
+            products = products.subList(0, pageSize);
+        }
+
+        List<ProductResponse> content = products.stream()
                 .map(ProductMapper::toResponse)
                 .collect(Collectors.toList());
+
+        String nextCursor = hasNext ? CursorCodec.encode(products.get(products.size() - 1).getId()) : null;
+        return new ProductPage(content, nextCursor, hasNext, content.size());
+    }
+
+    /**
+     * Version stamp for conditional GETs: one primary-key lookup, no entity or mapping
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductVersion getVersion(Long id) {
+        return productRepository.findVersionById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CatalogVersion getCatalogVersion() {
+        return catalogRevisionService.current();
     }
 
     @Override
@@ -192,62 +463,88 @@ public class ProductService implements IProductService {
                     return new IllegalArgumentException("Product not found with id: " + id);
                 });
 
-        // Delete all associated images from filesystem
+        // Delete all associated images; files are removed in parallel after commit
         Set<Image> imagesToDelete = new HashSet<>(product.getImages());
 
-        for (Image image : imagesToDelete) {
-            try {
-                imageService.delete(image.getId());
-                log.debug("Deleted image with id: {} from product deletion", image.getId());
-            } catch (Exception e) {
-                log.error("Failed to delete image with id: {} during product deletion", image.getId(), e);
-                throw new RuntimeException("Failed to delete associated images during product deletion", e);
-            }
+        try {
+            imageService.deleteAll(imagesToDelete);
+            log.debug("Deleted {} images from product deletion", imagesToDelete.size());
+        } catch (Exception e) {
+            log.error("Failed to delete images of product with id: {}", id, e);
+            throw new RuntimeException("Failed to delete associated images during product deletion", e);
         }
 
         // Delete product after all images are successfully deleted
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
         log.info("Product deleted successfully with id: {}", id);
     }
 
     /**
      * Filter products using JPA Specification
-     * Supports filtering by name, category ID, and category name
+     * Supports filtering by name, category ID, category name and specification values
+     * Reads through the DTO projection in ProductRepository rather than loading Product entities
      */
     @Override
     @Transactional(readOnly = true)
-    public List<ProductResponse> filter(String name, Long categoryId, String categoryName) {
-        log.info("Filtering products with name: {}, categoryId: {}, categoryName: {}", name, categoryId, categoryName);
+    public List<ProductResponse> filter(String name, Long categoryId, String categoryName, Map<String, Set<String>> spec) {
+        log.info("Filtering products with name: {}, categoryId: {}, categoryName: {}, spec: {}", name, categoryId, categoryName, spec);
 
-        List<Specification<Product>> specs = new ArrayList<>();
+        Specification<Product> specification = ProductSpecification.filter(name, categoryId, categoryName, spec);
 
-        if (name != null && !name.isBlank()) {
-            specs.add((root, query, cb) ->
-                    cb.like(cb.lower(root.get("name")), "%" + name.toLowerCase() + "%")
-            );
-        }
+        // Projection path: one joined query straight into DTO rows, no entity hydration or dirty-check snapshots
+        return ProductMapper.toResponses(productRepository.findRows(specification));
+    }
 
-        if (categoryId != null) {
-            specs.add((root, query, cb) ->
-                    cb.equal(root.get("category").get("id"), categoryId)
-            );
-        }
 
-        if (categoryName != null && !categoryName.isBlank()) {
-            specs.add((root, query, cb) ->
-                    cb.like(cb.lower(root.get("category").get("name")), "%" + categoryName.toLowerCase() + "%")
-            );
-        }
+    /**
+     * Ranked full-text search over name, category and specification values
+     * The in-memory index resolves the ranked ids; only the requested page is read from the database
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductSearchResult search(String query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        SearchHits hits = searchIndex.search(query, Math.max(page, 0), pageSize);
+        log.debug("Search '{}' matched {} products", query, hits.total());
+
+        return new ProductSearchResult(findInOrder(hits.ids()), hits.total(), page, pageSize);
+    }
 
-        Specification<Product> finalSpec = Specification.allOf(specs);
+    /**
+     * Faceted filtering over category and specification key/values
+     * Matching and counting run on the in-memory bitmaps; only the requested page is read from the database
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductFacetResult facets(Long categoryId, Map<String, Set<String>> specification, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        FacetHits hits = facetIndex.query(categoryId, specification, Math.max(page, 0), pageSize, facetValuesPerKey);
+        log.debug("Facet query categoryId: {}, specification: {} matched {} products", categoryId, specification, hits.total());
+
+        return new ProductFacetResult(
+                findInOrder(hits.ids()),
+                hits.total(),
+                page,
+                pageSize,
+                hits.facets(),
+                hits.categories()
+        );
+    }
 
-        return productRepository.findAll(finalSpec)
+    private List<ProductResponse> findInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+
+        Map<Long, ProductResponse> byId = ProductMapper.toResponses(productRepository.findRows(ProductSpecification.byIds(ids)))
                 .stream()
-                .map(ProductMapper::toResponse)
+                .collect(Collectors.toMap(ProductResponse::getId, response -> response));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
-
     private void validateProductRequest(ProductRequest request) {
         if (request == null) throw new IllegalArgumentException("Product request cannot be null");
         if (request.getName() == null || request.getName().trim().isEmpty())
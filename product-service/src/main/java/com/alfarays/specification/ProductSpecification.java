@@ -1,8 +1,16 @@
 package com.alfarays.specification;
 
 import com.alfarays.entity.Product;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * JPA Specification for filtering products with various criteria
  */
@@ -57,6 +65,47 @@ public class ProductSpecification {
         };
     }
 
+    /**
+     * Filter by a set of product IDs
+     */
+    public static Specification<Product> byIds(Collection<Long> ids) {
+        return (root, query, criteriaBuilder) -> {
+            if (ids == null || ids.isEmpty()) {
+                return null;
+            }
+            return root.get("id").in(ids);
+        };
+    }
+
+    /**
+     * Filter by specification values: key -> accepted values, ORed within a key and ANDed across keys.
+     * Values match exactly. The expression is the one SpecificationSchema gives generated columns, so
+     * MySQL answers keys listed in product.specification.indexed-keys from their index
+     */
+    public static Specification<Product> bySpecification(Map<String, Set<String>> filters) {
+        return (root, query, criteriaBuilder) -> {
+            if (filters == null || filters.isEmpty()) {
+                return null;
+            }
+            List<Predicate> predicates = new ArrayList<>();
+            filters.forEach((key, values) -> {
+                if (values == null || values.isEmpty()) return;
+                Expression<String> value = criteriaBuilder.function("json_unquote", String.class,
+                        criteriaBuilder.function("json_extract", String.class,
+                                root.get("specification"), criteriaBuilder.literal(jsonPath(key))));
+                predicates.add(value.in(values));
+            });
+            return predicates.isEmpty() ? null : criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * JSON path of a specification key, quoted so keys with spaces or dots address a single member
+     */
+    public static String jsonPath(String key) {
+        return "$.\"" + key.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
     /**
      * Filter by price range
      */
@@ -86,6 +135,17 @@ public class ProductSpecification {
         );
     }
 
+    /**
+     * Combined filter including specification values
+     */
+    public static Specification<Product> filter(String name, Long categoryId, String categoryName,
+                                                Map<String, Set<String>> specification) {
+        return Specification.allOf(
+                filter(name, categoryId, categoryName),
+                bySpecification(specification)
+        );
+    }
+
     /**
      * Advanced filter with price range
      */
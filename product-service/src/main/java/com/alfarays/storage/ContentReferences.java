@@ -0,0 +1,225 @@
+package com.alfarays.storage;
+
+import com.alfarays.configuration.StorageProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Coordinates content-addressed files that several Image rows may share.
+ *
+ * A file may only be removed once no committed row references its hash and no upload of the same
+ * bytes is still in flight. Uploads pin their hash until their transaction completes; removal checks
+ * the pin and the committed reference count under the same per-hash lock, so a concurrent upload of
+ * identical bytes either sees the file gone and writes it again, or keeps it alive.
+ *
+ * Storage shared by several replicas (an S3 bucket, a common volume) needs the lock and the pins to be
+ * visible to all of them. On MySQL the lock is also taken as a named lock (GET_LOCK) and every pin is
+ * also a row in content_pins, committed before the upload checks for the file. Pins left behind by a
+ * replica that died count only for storage.pin-lease, which must outlast the longest upload
+ * transaction. Elsewhere (H2 in tests) coordination stays within this instance.
+ */
+@Slf4j
+@Component
+public class ContentReferences implements SmartInitializingSingleton {
+
+    private static final int STRIPES = 64;
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+    // MySQL caps lock names at 64 characters
+    private static final int LOCK_NAME_LENGTH = 64;
+
+    private final Object[] locks = new Object[STRIPES];
+    private final ConcurrentMap<String, Integer> pinned = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final Duration pinLease;
+    private final String owner = UUID.randomUUID().toString();
+    private volatile boolean shared;
+
+    public ContentReferences(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             StorageProperties properties) {
+        for (int i = 0; i < STRIPES; i++) locks[i] = new Object();
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pinLease = properties.getPinLease();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(product)) {
+            log.debug("Not on MySQL, stored content is coordinated within this instance only");
+            return;
+        }
+
+        jdbcTemplate.execute("create table if not exists content_pins (" +
+                "id bigint not null auto_increment primary key, " +
+                "content_hash varchar(64) not null, " +
+                "owner varchar(36) not null, " +
+                "created_at timestamp(3) not null default current_timestamp(3), " +
+                "index idx_content_pins_hash (content_hash))");
+        int expired = jdbcTemplate.update("delete from content_pins where created_at < now(3) - interval ? second",
+                pinLease.toSeconds());
+        if (expired > 0) log.info("Dropped {} expired content pins", expired);
+        shared = true;
+    }
+
+    /**
+     * Runs a file operation on the given hash while holding its lock
+     */
+    public void withLock(String contentHash, IOAction action) throws IOException {
+        synchronized (lock(contentHash)) {
+            if (shared) {
+                withNamedLock(contentHash, action);
+            } else {
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * Keeps the hash's file alive until {@link #unpin} or {@link #releaseOnCompletion}; safe to call
+     * from any thread
+     */
+    public void pin(String contentHash) {
+        pinned.merge(contentHash, 1, Integer::sum);
+        if (!shared) return;
+        try {
+            requiresNew.executeWithoutResult(status -> jdbcTemplate.update(
+                    "insert into content_pins (content_hash, owner) values (?, ?)", contentHash, owner));
+        } catch (RuntimeException e) {
+            unpinLocally(contentHash);
+            throw e;
+        }
+    }
+
+    public void unpin(String contentHash) {
+        unpinLocally(contentHash);
+        if (!shared) return;
+        try {
+            // its own transaction: this also runs from afterCompletion, where the caller's has ended
+            requiresNew.executeWithoutResult(status -> jdbcTemplate.update(
+                    "delete from content_pins where content_hash = ? and owner = ? limit 1", contentHash, owner));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release content pin {}, it lapses after {}", contentHash, pinLease, e);
+        }
+    }
+
+    /**
+     * Releases a pin once the current transaction completes; on rollback the hash is handed to
+     * {@code onRollback} so a file nobody ended up referencing can be collected
+     */
+    public void releaseOnCompletion(String contentHash, Consumer<String> onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            unpin(contentHash);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unpin(contentHash);
+                if (status != STATUS_COMMITTED) onRollback.accept(contentHash);
+            }
+        });
+    }
+
+    /**
+     * Whether an upload on this or, with shared coordination, any other instance still holds the hash;
+     * call it under {@link #withLock}
+     */
+    public boolean isPinned(String contentHash) {
+        if (pinned.containsKey(contentHash)) return true;
+        if (!shared) return false;
+
+        Long pins = requiresNew.execute(status -> jdbcTemplate.queryForObject(
+                "select count(*) from content_pins where content_hash = ? and created_at >= now(3) - interval ? second",
+                Long.class, contentHash, pinLease.toSeconds()));
+        return pins != null && pins > 0;
+    }
+
+    /**
+     * Runs {@code action} once the current transaction has committed, or right away without one
+     */
+    public void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * GET_LOCK belongs to the session, so taking it, running the action and releasing it all happen on
+     * one connection
+     */
+    private void withNamedLock(String contentHash, IOAction action) throws IOException {
+        String lockName = "images:" + contentHash;
+        String name = lockName.length() > LOCK_NAME_LENGTH ? lockName.substring(0, LOCK_NAME_LENGTH) : lockName;
+        IOException[] failure = new IOException[1];
+
+        Boolean acquired = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (PreparedStatement lock = connection.prepareStatement("select get_lock(?, ?)")) {
+                lock.setString(1, name);
+                lock.setInt(2, LOCK_TIMEOUT_SECONDS);
+                try (ResultSet result = lock.executeQuery()) {
+                    if (!result.next() || result.getInt(1) != 1) return false;
+                }
+            }
+            try {
+                action.run();
+            } catch (IOException e) {
+                failure[0] = e;
+            } finally {
+                try (PreparedStatement release = connection.prepareStatement("select release_lock(?)")) {
+                    release.setString(1, name);
+                    release.execute();
+                }
+            }
+            return true;
+        });
+
+        if (!Boolean.TRUE.equals(acquired)) {
+            throw new IOException("Timed out waiting for the storage lock on " + contentHash);
+        }
+        if (failure[0] != null) throw failure[0];
+    }
+
+    private void unpinLocally(String contentHash) {
+        pinned.computeIfPresent(contentHash, (hash, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Object lock(String contentHash) {
+        return locks[Math.floorMod(contentHash.hashCode(), STRIPES)];
+    }
+
+    @FunctionalInterface
+    public interface IOAction {
+        void run() throws IOException;
+    }
+}
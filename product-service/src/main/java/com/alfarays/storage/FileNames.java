@@ -0,0 +1,74 @@
+package com.alfarays.storage;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Client-supplied upload names: only the extension is ever taken from them.
+ */
+public final class FileNames {
+
+    public static final String OCTET_STREAM = "application/octet-stream";
+
+    // Raster types browsers render inline and never execute; SVG is deliberately absent
+    private static final Map<String, String> IMAGE_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp"
+    );
+
+    private FileNames() {
+    }
+
+    /**
+     * Text after the last dot, as given; empty when there is none
+     */
+    public static String extension(String filename) {
+        if (filename == null || !filename.contains(".")) {
+            return "";
+        }
+        return filename.substring(filename.lastIndexOf(".") + 1);
+    }
+
+    /**
+     * @param allowedExtensions comma-separated list as configured in image.allowed-extensions
+     */
+    public static boolean isAllowedExtension(String extension, String allowedExtensions) {
+        String[] allowed = allowedExtensions.toLowerCase().split(",");
+        for (String ext : allowed) {
+            if (ext.trim().equalsIgnoreCase(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Content type to store and serve for an upload, derived from its validated extension; the
+     * client-supplied Content-Type is never trusted. Extensions outside the image allowlist get
+     * application/octet-stream
+     */
+    public static String contentType(String extension) {
+        return IMAGE_TYPES.getOrDefault(extension.toLowerCase(Locale.ROOT), OCTET_STREAM);
+    }
+
+    /**
+     * Whether a stored content type may be served inline; anything else goes out as an attachment
+     */
+    public static boolean isInlineImageType(String contentType) {
+        if (contentType == null) return false;
+        int parameters = contentType.indexOf(';');
+        String type = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+        return IMAGE_TYPES.containsValue(type);
+    }
+
+    /**
+     * Content-addressed name: the SHA-256 of the bytes plus the lowercased extension
+     */
+    public static String secureName(String contentHash, String originalFilename) {
+        String extension = extension(originalFilename).toLowerCase();
+        return extension.isEmpty() ? contentHash : contentHash + "." + extension;
+    }
+}
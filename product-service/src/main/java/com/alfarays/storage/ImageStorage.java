@@ -0,0 +1,57 @@
+package com.alfarays.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Backend holding image bytes, addressed by slash-separated keys.
+ *
+ * Writes always start from a local temp file obtained from {@link #newTempFile()}: the upload is
+ * hashed there first and only then published under its key with {@link #put}, so readers never see
+ * a partial object. Selected with storage.type (local or s3).
+ */
+public interface ImageStorage {
+
+    /**
+     * A fresh, not yet existing local path to spool an upload into before it is published
+     */
+    Path newTempFile() throws IOException;
+
+    /**
+     * Publishes {@code source} under {@code key}, replacing whatever is there, and consumes the file
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * @throws java.nio.file.NoSuchFileException when nothing is stored under the key
+     */
+    long size(String key) throws IOException;
+
+    /**
+     * Stream over {@code count} bytes of the object starting at {@code start}
+     */
+    InputStream open(String key, long start, long count) throws IOException;
+
+    /**
+     * The local file behind a key, when the backend has one; downloads then go out through sendfile
+     */
+    Optional<Path> localFile(String key);
+
+    /**
+     * Removes the object; a missing key is not an error
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Key for content-addressed bytes, sharded by two levels of two hex digits: 65,536 leaf prefixes
+     * keep every directory to a few hundred entries even at tens of millions of images
+     */
+    static String contentKey(String contentHash, String extension) {
+        String name = extension == null || extension.isEmpty() ? contentHash : contentHash + "." + extension;
+        return contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + name;
+    }
+}
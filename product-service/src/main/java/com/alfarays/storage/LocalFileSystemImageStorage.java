@@ -0,0 +1,129 @@
+package com.alfarays.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keys map to files below storage.upload-dir, so the sharded content keys become nested prefix
+ * directories. Temp files are spooled in the root itself, on the same filesystem as their target,
+ * which makes publishing a single atomic rename.
+ */
+@Slf4j
+public class LocalFileSystemImageStorage implements ImageStorage {
+
+    private static final String TEMP_PREFIX = ".incoming-";
+
+    private final Path root;
+
+    public LocalFileSystemImageStorage(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public Path newTempFile() throws IOException {
+        if (!Files.exists(root)) {
+            Files.createDirectories(root);
+            log.info("Created upload directory at: {}", root);
+        }
+        return root.resolve(TEMP_PREFIX + UUID.randomUUID()).toAbsolutePath();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // temp file came from another filesystem: copy next to the target, then rename
+            Path sibling = target.resolveSibling(TEMP_PREFIX + UUID.randomUUID());
+            try {
+                Files.copy(source, sibling);
+                Files.move(sibling, target, StandardCopyOption.ATOMIC_MOVE);
+                Files.delete(source);
+            } finally {
+                Files.deleteIfExists(sibling);
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(resolve(key));
+    }
+
+    @Override
+    public InputStream open(String key, long start, long count) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(start);
+        return new BoundedInputStream(Channels.newInputStream(channel), count);
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (Files.deleteIfExists(resolve(key))) log.info("Image file deleted: {}", key);
+    }
+
+    /**
+     * Keys are relative to the root; rows stored before the sharded layout hold the full path of their
+     * file (below the root, or absolute) and resolve to it unchanged
+     */
+    Path resolve(String key) {
+        Path path = Paths.get(key);
+        return path.isAbsolute() || path.startsWith(root) ? path : root.resolve(path);
+    }
+
+    private static final class BoundedInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+
+        private BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) return -1;
+            int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) remaining -= read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.alfarays.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Objects in an S3-compatible bucket, shared by every replica. A PUT becomes visible all at once, so
+ * the temp file is uploaded straight to its final key. Replicas coordinate reuse and removal of shared
+ * content through the database (see ContentReferences), which needs MySQL. Works against MinIO or LocalStack through
+ * storage.s3.endpoint and path-style access.
+ *
+ * Rows stored on local disk before switching backends are not migrated and will not resolve here.
+ */
+@Slf4j
+public class S3ImageStorage implements ImageStorage {
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String prefix;
+    private final Path tempDirectory;
+
+    public S3ImageStorage(S3Client s3, String bucket, String prefix, Path tempDirectory) {
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.prefix = prefix == null || prefix.isEmpty() ? "" : prefix.endsWith("/") ? prefix : prefix + "/";
+        this.tempDirectory = tempDirectory;
+    }
+
+    @Override
+    public Path newTempFile() throws IOException {
+        Files.createDirectories(tempDirectory);
+        return tempDirectory.resolve("image-" + UUID.randomUUID()).toAbsolutePath();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        try {
+            s3.putObject(PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(prefix + key)
+                            .contentType(contentType)
+                            .build(),
+                    RequestBody.fromFile(source));
+        } catch (SdkException e) {
+            throw new IOException("Failed to upload " + key + " to bucket " + bucket, e);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return head(key).isPresent();
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return head(key)
+                .map(HeadObjectResponse::contentLength)
+                .orElseThrow(() -> new NoSuchFileException(key));
+    }
+
+    @Override
+    public InputStream open(String key, long start, long count) throws IOException {
+        try {
+            return s3.getObject(GetObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(prefix + key)
+                    .range("bytes=" + start + "-" + (start + count - 1))
+                    .build());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Failed to read " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+            log.info("Image object deleted: {}", key);
+        } catch (SdkException e) {
+            throw new IOException("Failed to delete " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    private Optional<HeadObjectResponse> head(String key) throws IOException {
+        try {
+            return Optional.of(s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(prefix + key).build()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            // HEAD has no body, so some servers report a missing key only through the status code
+            if (e.statusCode() == 404) return Optional.empty();
+            throw new IOException("Failed to look up " + key + " in bucket " + bucket, e);
+        } catch (SdkException e) {
+            throw new IOException("Failed to look up " + key + " in bucket " + bucket, e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.alfarays.cache;
+
+import com.alfarays.configuration.CacheConfiguration;
+import com.alfarays.event.ProductChangedEvent;
+import com.alfarays.model.CategoryResponse;
+import com.alfarays.model.ProductResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogCacheInvalidatorTests {
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfiguration.PRODUCTS);
+    private final CatalogCacheInvalidator invalidator = new CatalogCacheInvalidator(cacheManager);
+    private final Cache products = cacheManager.getCache(CacheConfiguration.PRODUCTS);
+
+    @Test
+    void newerUpsertReplacesTheCachedEntry() {
+        invalidator.onProductChanged(ProductChangedEvent.upserted(product("Desk Lamp", 1L, 0L)));
+        invalidator.onProductChanged(ProductChangedEvent.upserted(product("Floor Lamp", 2L, 0L)));
+
+        assertThat(products.get(1L, ProductResponse.class).getName()).isEqualTo("Floor Lamp");
+    }
+
+    @Test
+    void lateOlderUpsertDoesNotOverwriteANewerEntry() {
+        invalidator.onProductChanged(ProductChangedEvent.upserted(product("Floor Lamp", 2L, 0L)));
+        invalidator.onProductChanged(ProductChangedEvent.upserted(product("Desk Lamp", 1L, 5L)));
+        invalidator.onProductChanged(ProductChangedEvent.upserted(product("Desk Lamp", 2L, 0L)));
+
+        assertThat(products.get(1L, ProductResponse.class).getName()).isEqualTo("Floor Lamp");
+    }
+
+    @Test
+    void categoryVersionBreaksProductVersionTies() {
+        invalidator.onProductChanged(ProductChangedEvent.upserted(product("Desk Lamp", 2L, 0L)));
+        invalidator.onProductChanged(ProductChangedEvent.upserted(product("Desk Lamp", 2L, 1L)));
+
+        assertThat(products.get(1L, ProductResponse.class).getCategory().getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void deleteEvicts() {
+        invalidator.onProductChanged(ProductChangedEvent.upserted(product("Desk Lamp", 2L, 0L)));
+        invalidator.onProductChanged(ProductChangedEvent.deleted(1L));
+
+        assertThat(products.get(1L)).isNull();
+    }
+
+    private static ProductResponse product(String name, Long version, Long categoryVersion) {
+        return new ProductResponse(1L, name, version, Map.of(), new CategoryResponse(1L, "Lighting", categoryVersion), List.of());
+    }
+}
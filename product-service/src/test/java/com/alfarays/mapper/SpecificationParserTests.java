@@ -0,0 +1,47 @@
+package com.alfarays.mapper;
+
+import com.alfarays.configuration.SpecificationProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class SpecificationParserTests {
+
+    private final SpecificationParser parser = new SpecificationParser(new SpecificationProperties());
+
+    @Test
+    void scalarsAreKeptAsText() throws Exception {
+        Map<String, String> specification = parser.parse("{\"color\": \"blue\", \"ram\": 16, \"5g\": true, \"size\": null}");
+
+        assertThat(specification).containsOnly(
+                entry("color", "blue"),
+                entry("ram", "16"),
+                entry("5g", "true"),
+                entry("size", null)
+        );
+    }
+
+    @Test
+    void rejectsAnythingButAFlatObject() {
+        assertThatThrownBy(() -> parser.parse("[\"blue\"]")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> parser.parse("{\"a\": 1} {}")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> parser.parse("{\"color\": {\"name\": \"blue\"}}")).isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> parser.parse("{\"color\": \"blue\"")).isInstanceOf(JsonProcessingException.class);
+    }
+
+    @Test
+    void enforcesLimits() {
+        SpecificationProperties properties = new SpecificationProperties();
+        properties.setMaxEntries(2);
+        properties.setMaxValueLength(8);
+        SpecificationParser limited = new SpecificationParser(properties);
+
+        assertThatThrownBy(() -> limited.parse("{\"a\": 1, \"b\": 2, \"c\": 3}")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> limited.parse("{\"a\": \"123456789\"}")).isInstanceOf(JsonProcessingException.class);
+    }
+}
@@ -0,0 +1,207 @@
+package com.alfarays.messaging;
+
+import com.alfarays.configuration.CacheConfiguration;
+import com.alfarays.entity.Category;
+import com.alfarays.event.CatalogChangeEvent;
+import com.alfarays.event.CatalogEntity;
+import com.alfarays.event.ChangeType;
+import com.alfarays.model.CategoryRequest;
+import com.alfarays.model.CategoryResponse;
+import com.alfarays.model.ProductRequest;
+import com.alfarays.model.ProductResponse;
+import com.alfarays.repository.CategoryRepository;
+import com.alfarays.search.ProductSearchIndex;
+import com.alfarays.service.ICategoryService;
+import com.alfarays.service.IProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cloud.stream.binder.test.InputDestination;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:catalog;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.show-sql=false"
+})
+@Import(TestChannelBinderConfiguration.class)
+class CatalogChangeStreamTests {
+
+    private static final String DESTINATION = "catalog-changed";
+
+    @Autowired
+    private InputDestination input;
+
+    @Autowired
+    private OutputDestination output;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private CatalogEventPublisher publisher;
+
+    @Autowired
+    private IProductService productService;
+
+    @Autowired
+    private ICategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @BeforeEach
+    void drain() {
+        output.clear();
+    }
+
+    @Test
+    void committedWritesArePublished() throws Exception {
+        CategoryRequest categoryRequest = new CategoryRequest();
+        categoryRequest.setName("Lighting");
+        CategoryResponse category = categoryService.create(categoryRequest);
+
+        CatalogChangeEvent categoryEvent = receive();
+        assertThat(categoryEvent.entity()).isEqualTo(CatalogEntity.CATEGORY);
+        assertThat(categoryEvent.type()).isEqualTo(ChangeType.UPSERTED);
+        assertThat(categoryEvent.category().getName()).isEqualTo("Lighting");
+        assertThat(publisher.isLocal(categoryEvent)).isTrue();
+
+        ProductRequest productRequest = new ProductRequest();
+        productRequest.setName("Desk Lamp");
+        productRequest.setCategoryId(category.getId());
+        productRequest.setSpecification(Map.of("color", "white"));
+        ProductResponse product = productService.create(productRequest);
+
+        CatalogChangeEvent productEvent = receive();
+        assertThat(productEvent.entity()).isEqualTo(CatalogEntity.PRODUCT);
+        assertThat(productEvent.id()).isEqualTo(product.getId());
+        assertThat(productEvent.product().getName()).isEqualTo("Desk Lamp");
+        assertThat(productEvent.product().getSpecification()).containsEntry("color", "white");
+    }
+
+    @Test
+    void everyCommittedWriteMovesTheCatalogVersion() throws Exception {
+        long before = productService.getCatalogVersion().revision();
+
+        CategoryRequest categoryRequest = new CategoryRequest();
+        categoryRequest.setName("Bathroom");
+        CategoryResponse category = categoryService.create(categoryRequest);
+        ProductRequest productRequest = new ProductRequest();
+        productRequest.setName("Mirror Light");
+        productRequest.setCategoryId(category.getId());
+        productService.create(productRequest);
+
+        assertThat(productService.getCatalogVersion().revision()).isEqualTo(before + 2);
+
+        // applying another replica's change writes nothing here, so the revision stays put
+        send(remote(ChangeType.UPSERTED, 9004L, product(9004L, "Vanity Light")));
+        assertThat(productService.getCatalogVersion().revision()).isEqualTo(before + 2);
+    }
+
+    @Test
+    void remoteUpsertRefreshesCacheAndIndex() throws Exception {
+        Cache products = cacheManager.getCache(CacheConfiguration.PRODUCTS);
+        products.put(9001L, product(9001L, "Old Name"));
+
+        send(remote(ChangeType.UPSERTED, 9001L, product(9001L, "Floor Lamp")));
+
+        assertThat(products.get(9001L, ProductResponse.class).getName()).isEqualTo("Floor Lamp");
+        assertThat(searchIndex.search("floor", 0, 10).ids()).contains(9001L);
+    }
+
+    @Test
+    void remoteDeleteEvictsCacheAndIndex() throws Exception {
+        send(remote(ChangeType.UPSERTED, 9002L, product(9002L, "Wall Sconce")));
+        send(remote(ChangeType.DELETED, 9002L, null));
+
+        assertThat(cacheManager.getCache(CacheConfiguration.PRODUCTS).get(9002L)).isNull();
+        assertThat(searchIndex.search("sconce", 0, 10).ids()).doesNotContain(9002L);
+    }
+
+    @Test
+    void remoteCategoryRenameReindexesItsProducts() throws Exception {
+        CategoryRequest categoryRequest = new CategoryRequest();
+        categoryRequest.setName("Garden");
+        CategoryResponse category = categoryService.create(categoryRequest);
+        ProductRequest productRequest = new ProductRequest();
+        productRequest.setName("Hose Reel");
+        productRequest.setCategoryId(category.getId());
+        ProductResponse product = productService.create(productRequest);
+
+        // the rename is committed by another replica: the row changes, no local event fires
+        Category renamed = categoryRepository.findById(category.getId()).orElseThrow();
+        renamed.setName("Patio");
+        renamed = categoryRepository.saveAndFlush(renamed);
+
+        send(new CatalogChangeEvent(CatalogEntity.CATEGORY, category.getId(), ChangeType.UPSERTED, "other-replica",
+                Instant.now(), null, new CategoryResponse(category.getId(), "Patio", renamed.getVersion())));
+
+        assertThat(searchIndex.search("patio", 0, 10).ids()).contains(product.getId());
+        assertThat(searchIndex.search("garden", 0, 10).ids()).doesNotContain(product.getId());
+        assertThat(cacheManager.getCache(CacheConfiguration.CATEGORIES).get(category.getId(), CategoryResponse.class).getName())
+                .isEqualTo("Patio");
+    }
+
+    @Test
+    void ownEventsAreIgnored() throws Exception {
+        CatalogChangeEvent local = new CatalogChangeEvent(CatalogEntity.PRODUCT, 9003L, ChangeType.UPSERTED,
+                origin(), Instant.now(), product(9003L, "Pendant Light"), null);
+
+        send(local);
+
+        assertThat(cacheManager.getCache(CacheConfiguration.PRODUCTS).get(9003L)).isNull();
+        assertThat(searchIndex.search("pendant", 0, 10).ids()).doesNotContain(9003L);
+    }
+
+    private String origin() throws Exception {
+        CategoryRequest request = new CategoryRequest();
+        request.setName("Origin Probe");
+        categoryService.create(request);
+        return receive().origin();
+    }
+
+    private CatalogChangeEvent receive() throws Exception {
+        Message<byte[]> message = output.receive(1000, DESTINATION);
+        assertThat(message).isNotNull();
+        return objectMapper.readValue(message.getPayload(), CatalogChangeEvent.class);
+    }
+
+    private void send(CatalogChangeEvent event) throws Exception {
+        input.send(MessageBuilder.withPayload(objectMapper.writeValueAsBytes(event)).build(), DESTINATION);
+    }
+
+    private static CatalogChangeEvent remote(ChangeType type, Long id, ProductResponse product) {
+        return new CatalogChangeEvent(CatalogEntity.PRODUCT, id, type, "other-replica", Instant.now(), product, null);
+    }
+
+    private static ProductResponse product(Long id, String name) {
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(new CategoryResponse(1L, "Lighting", 0L));
+        product.setSpecification(Map.of());
+        return product;
+    }
+}
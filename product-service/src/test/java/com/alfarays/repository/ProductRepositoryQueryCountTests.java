@@ -0,0 +1,156 @@
+package com.alfarays.repository;
+
+import com.alfarays.audit.AuditAwareImpl;
+import com.alfarays.entity.Category;
+import com.alfarays.entity.Image;
+import com.alfarays.entity.Product;
+import com.alfarays.mapper.ProductMapper;
+import com.alfarays.model.ProductResponse;
+import com.alfarays.specification.ProductSpecification;
+import com.alfarays.support.QueryCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+@Import(AuditAwareImpl.class)
+class ProductRepositoryQueryCountTests {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 30})
+    void keysetPageCostsConstantStatements(int products) {
+        seed(products);
+        QueryCounter counter = new QueryCounter(entityManagerFactory);
+        counter.reset();
+
+        List<ProductResponse> page = productRepository
+                .findByIdGreaterThanOrderByIdAsc(0L, Limit.of(products))
+                .stream()
+                .map(ProductMapper::toResponse)
+                .toList();
+
+        assertThat(page).hasSize(products);
+        assertThat(page).allSatisfy(p -> {
+            assertThat(p.getCategory()).isNotNull();
+            assertThat(p.getImages()).hasSize(2);
+            assertThat(p.getSpecification()).hasSize(2);
+        });
+        // products + category join (specification is a column), one batch for images
+        counter.assertStatements(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 30})
+    void filterCostsSingleStatement(int products) {
+        Long categoryId = seed(products);
+        QueryCounter counter = new QueryCounter(entityManagerFactory);
+        counter.reset();
+
+        List<ProductResponse> result = productRepository
+                .findAll(ProductSpecification.filter(null, categoryId, null))
+                .stream()
+                .map(ProductMapper::toResponse)
+                .toList();
+
+        assertThat(result).hasSize(products);
+        counter.assertStatements(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 30})
+    void filterProjectionCostsSingleStatement(int products) {
+        Long categoryId = seed(products);
+        QueryCounter counter = new QueryCounter(entityManagerFactory);
+        counter.reset();
+
+        List<ProductResponse> result = ProductMapper.toResponses(
+                productRepository.findRows(ProductSpecification.filter(null, categoryId, null))
+        );
+
+        assertThat(result).hasSize(products);
+        assertThat(result).allSatisfy(p -> {
+            assertThat(p.getImages()).hasSize(2);
+            assertThat(p.getSpecification()).containsEntry("color", "black");
+        });
+        counter.assertStatements(1);
+    }
+
+    @Test
+    void singleProductCostsSingleStatement() {
+        seed(1);
+        Long id = productRepository.findAll().get(0).getId();
+        entityManager.clear();
+        QueryCounter counter = new QueryCounter(entityManagerFactory);
+        counter.reset();
+
+        ProductResponse response = productRepository.findWithDetailsById(id)
+                .map(ProductMapper::toResponse)
+                .orElseThrow();
+
+        assertThat(response.getImages()).hasSize(2);
+        counter.assertStatements(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 30})
+    void insertsAreBatched(int products) {
+        QueryCounter counter = new QueryCounter(entityManagerFactory);
+        counter.reset();
+
+        seed(products);
+
+        // one id fetch per 50 rows of each sequence and one statement per 50-row batch of each table;
+        // fetching ids and inserting one row at a time would cost 2 + 6 * products
+        assertThat(counter.count())
+                .as("prepared SQL statements")
+                .isLessThanOrEqualTo(8);
+    }
+
+    private Long seed(int products) {
+        Category category = new Category();
+        category.setName("Electronics");
+        entityManager.persist(category);
+
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setCategory(category);
+            product.setSpecification(new HashMap<>(Map.of("color", "black", "size", "L")));
+            for (int j = 0; j < 2; j++) {
+                Image image = new Image();
+                image.setName("image-" + i + "-" + j + ".png");
+                image.setProduct(product);
+                product.getImages().add(image);
+            }
+            entityManager.persist(product);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        return category.getId();
+    }
+}
@@ -0,0 +1,135 @@
+package com.alfarays.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactBitmapTests {
+
+    @Test
+    void bucketSwitchesBetweenArrayAndBitmapAt4096Values() throws Exception {
+        CompactBitmap bitmap = of(IntStream.range(0, 4096).map(i -> i * 2).toArray());
+        assertThat(containerTypes(bitmap)).containsExactly("ArrayContainer");
+
+        bitmap.add(10_000);
+        assertThat(containerTypes(bitmap)).containsExactly("BitmapContainer");
+        assertThat(bitmap.cardinality()).isEqualTo(4097);
+
+        bitmap.remove(0);
+        assertThat(containerTypes(bitmap)).containsExactly("ArrayContainer");
+        assertThat(values(bitmap)).hasSize(4096).doesNotContain(0).contains(2, 8190, 10_000);
+    }
+
+    @Test
+    void intersectionOfDenseBucketsShrinksBackToAnArray() throws Exception {
+        CompactBitmap evens = of(IntStream.range(0, 20_000).filter(i -> i % 2 == 0).toArray());
+        CompactBitmap lowRange = of(IntStream.range(0, 9_000).toArray());
+
+        CompactBitmap intersection = evens.and(lowRange);
+
+        assertThat(containerTypes(evens)).containsExactly("BitmapContainer");
+        assertThat(containerTypes(lowRange)).containsExactly("BitmapContainer");
+        assertThat(containerTypes(intersection)).containsExactly("BitmapContainer");
+        assertThat(intersection.cardinality()).isEqualTo(4500);
+
+        CompactBitmap sparse = evens.and(of(IntStream.range(0, 4_000).toArray()));
+        assertThat(containerTypes(sparse)).containsExactly("ArrayContainer");
+        assertThat(sparse.cardinality()).isEqualTo(2000);
+    }
+
+    @Test
+    void setOperationsMatchAReferenceSetAcrossContainerTypesAndKeys() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            TreeSet<Integer> left = randomSet(random);
+            TreeSet<Integer> right = randomSet(random);
+            CompactBitmap a = of(left);
+            CompactBitmap b = of(right);
+
+            TreeSet<Integer> intersection = new TreeSet<>(left);
+            intersection.retainAll(right);
+            TreeSet<Integer> union = new TreeSet<>(left);
+            union.addAll(right);
+
+            assertThat(values(a.and(b))).isEqualTo(new ArrayList<>(intersection));
+            assertThat(a.andCardinality(b)).isEqualTo(intersection.size());
+            assertThat(b.andCardinality(a)).isEqualTo(intersection.size());
+            assertThat(values(a.or(b))).isEqualTo(new ArrayList<>(union));
+            assertThat(a.or(b).cardinality()).isEqualTo(union.size());
+        }
+    }
+
+    @Test
+    void valuesOnEitherSideOfA16BitKeyBoundaryStayApart() {
+        CompactBitmap a = of(65_535, 65_536, 131_072);
+        CompactBitmap b = of(65_535, 131_071, 131_072);
+
+        assertThat(values(a.and(b))).containsExactly(65_535, 131_072);
+        assertThat(a.andCardinality(b)).isEqualTo(2);
+        assertThat(values(a.or(b))).containsExactly(65_535, 65_536, 131_071, 131_072);
+    }
+
+    @Test
+    void removingEveryValueEmptiesTheBitmap() {
+        int[] values = IntStream.range(0, 5_000).map(i -> i * 3).toArray();
+        CompactBitmap bitmap = of(values);
+        bitmap.add(1 << 20);
+
+        for (int value : values) bitmap.remove(value);
+        assertThat(values(bitmap)).containsExactly(1 << 20);
+
+        bitmap.remove(1 << 20);
+        bitmap.remove(7);
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertThat(bitmap.cardinality()).isZero();
+        assertThat(bitmap.andCardinality(of(0, 3))).isZero();
+
+        bitmap.add(3);
+        assertThat(values(bitmap)).containsExactly(3);
+    }
+
+    // mix of sparse and dense buckets in the first three 16-bit keys
+    private static TreeSet<Integer> randomSet(Random random) {
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int key = 0; key < 3; key++) {
+            int count = random.nextBoolean() ? random.nextInt(200) : 4_000 + random.nextInt(10_000);
+            for (int i = 0; i < count; i++) set.add((key << 16) | random.nextInt(1 << 16));
+        }
+        return set;
+    }
+
+    private static CompactBitmap of(int... values) {
+        CompactBitmap bitmap = new CompactBitmap();
+        for (int value : values) bitmap.add(value);
+        return bitmap;
+    }
+
+    private static CompactBitmap of(Iterable<Integer> values) {
+        CompactBitmap bitmap = new CompactBitmap();
+        values.forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static List<Integer> values(CompactBitmap bitmap) {
+        List<Integer> values = new ArrayList<>();
+        bitmap.forEach(values::add);
+        return values;
+    }
+
+    private static List<String> containerTypes(CompactBitmap bitmap) throws Exception {
+        Field field = CompactBitmap.class.getDeclaredField("containers");
+        field.setAccessible(true);
+        List<String> types = new ArrayList<>();
+        for (Object container : (Object[]) field.get(bitmap)) {
+            if (container != null) types.add(container.getClass().getSimpleName());
+        }
+        return types;
+    }
+}
@@ -0,0 +1,77 @@
+package com.alfarays.search;
+
+import com.alfarays.model.CategoryResponse;
+import com.alfarays.model.ProductResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductFacetIndexTests {
+
+    private static final CategoryResponse PHONES = new CategoryResponse(1L, "Phones", 0L);
+    private static final CategoryResponse LAPTOPS = new CategoryResponse(2L, "Laptops", 0L);
+
+    private final ProductFacetIndex index = new ProductFacetIndex();
+
+    @Test
+    void countsIgnoreTheirOwnKeysSelection() {
+        index.index(product(1L, PHONES, Map.of("color", "Blue", "storage", "128GB")));
+        index.index(product(2L, PHONES, Map.of("color", "red", "storage", "256GB")));
+        index.index(product(3L, PHONES, Map.of("color", "blue", "storage", "256GB")));
+        index.index(product(4L, LAPTOPS, Map.of("color", "blue")));
+
+        FacetHits hits = index.query(1L, Map.of("color", Set.of("BLUE")), 0, 10, 10);
+
+        assertThat(hits.total()).isEqualTo(2);
+        assertThat(hits.ids()).containsExactly(1L, 3L);
+        assertThat(hits.facets().get("color")).isEqualTo(Map.of("blue", 2L, "red", 1L));
+        assertThat(hits.facets().get("storage")).isEqualTo(Map.of("128gb", 1L, "256gb", 1L));
+        assertThat(hits.categories()).isEqualTo(Map.of(1L, 2L, 2L, 1L));
+    }
+
+    @Test
+    void upsertMovesAProductBetweenValuesAndCategories() {
+        index.index(product(1L, PHONES, Map.of("color", "blue")));
+        index.index(product(2L, PHONES, Map.of("color", "blue")));
+
+        index.index(product(2L, LAPTOPS, Map.of("color", "green", "weight", "1kg")));
+
+        FacetHits hits = index.query(null, Map.of(), 0, 10, 10);
+        assertThat(hits.total()).isEqualTo(2);
+        assertThat(hits.facets().get("color")).isEqualTo(Map.of("blue", 1L, "green", 1L));
+        assertThat(hits.facets().get("weight")).isEqualTo(Map.of("1kg", 1L));
+        assertThat(hits.categories()).isEqualTo(Map.of(1L, 1L, 2L, 1L));
+    }
+
+    @Test
+    void deleteDropsTheProductAndEmptiedValues() {
+        index.index(product(1L, PHONES, Map.of("color", "blue")));
+        index.index(product(2L, LAPTOPS, Map.of("color", "red")));
+
+        index.remove(2L);
+
+        FacetHits hits = index.query(null, Map.of(), 0, 10, 10);
+        assertThat(hits.ids()).containsExactly(1L);
+        assertThat(hits.facets()).containsOnlyKeys("color");
+        assertThat(hits.facets().get("color")).isEqualTo(Map.of("blue", 1L));
+        assertThat(hits.categories()).isEqualTo(Map.of(1L, 1L));
+        assertThat(index.query(2L, Map.of(), 0, 10, 10).total()).isZero();
+        assertThat(index.query(null, Map.of("color", Set.of("red")), 0, 10, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void pagesFollowIndexOrder() {
+        for (long id = 1; id <= 5; id++) index.index(product(id, PHONES, Map.of()));
+
+        assertThat(index.query(null, Map.of(), 1, 2, 10).ids()).containsExactly(3L, 4L);
+        assertThat(index.query(null, Map.of(), 2, 2, 10).ids()).containsExactly(5L);
+    }
+
+    private static ProductResponse product(Long id, CategoryResponse category, Map<String, String> specification) {
+        return new ProductResponse(id, "Product " + id, 0L, specification, category, List.of());
+    }
+}
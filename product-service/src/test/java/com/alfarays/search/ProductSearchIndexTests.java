@@ -0,0 +1,115 @@
+package com.alfarays.search;
+
+import com.alfarays.model.CategoryResponse;
+import com.alfarays.model.ProductResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTests {
+
+    private static final CategoryResponse LIGHTING = new CategoryResponse(1L, "Lighting", 0L);
+    private static final CategoryResponse OUTDOOR = new CategoryResponse(2L, "Outdoor", 0L);
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void nameMatchesRankAboveCategoryAndSpecificationMatches() {
+        index.index(product(1L, "Garden bench", OUTDOOR, Map.of("finish", "lamp black")));
+        index.index(product(2L, "Desk lamp", LIGHTING, Map.of()));
+        index.index(product(3L, "Ceiling fan", new CategoryResponse(3L, "Lamp", 0L), Map.of()));
+
+        SearchHits hits = index.search("lamp", 0, 10);
+
+        assertThat(hits.total()).isEqualTo(3);
+        assertThat(hits.ids()).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        index.index(product(1L, "Desk lamp", LIGHTING, Map.of("color", "black")));
+        index.index(product(2L, "Floor lamp", LIGHTING, Map.of("color", "white")));
+
+        assertThat(index.search("black lamp", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("black sofa", 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void prefixesMatchBelowExactTerms() {
+        index.index(product(1L, "Lantern", OUTDOOR, Map.of()));
+        index.index(product(2L, "Lan cable", LIGHTING, Map.of()));
+
+        assertThat(index.search("lan", 0, 10).ids()).containsExactly(2L, 1L);
+        assertThat(index.search("lante", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("l", 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void termsWithinOneEditMatch() {
+        index.index(product(1L, "Pendant light", LIGHTING, Map.of()));
+        index.index(product(2L, "Pedestal fan", LIGHTING, Map.of()));
+
+        assertThat(index.search("pendnat", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("pendat", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("pendxnt", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("pnedxnt", 0, 10).ids()).isEmpty();
+        // typo tolerance starts at four characters
+        assertThat(index.search("fna", 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void reUpsertReplacesTheIndexedTerms() {
+        index.index(product(1L, "Desk lamp", LIGHTING, Map.of()));
+        index.index(product(1L, "Desk fan", new CategoryResponse(1L, "Cooling", 1L), Map.of()));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("lamp", 0, 10).ids()).isEmpty();
+        assertThat(index.search("lighting", 0, 10).ids()).isEmpty();
+        assertThat(index.search("fan cooling", 0, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void removedProductsNoLongerMatch() {
+        index.index(product(1L, "Desk lamp", LIGHTING, Map.of()));
+        index.index(product(2L, "Floor lamp", LIGHTING, Map.of()));
+
+        index.remove(1L);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("lamp", 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("desk", 0, 10).ids()).isEmpty();
+        assertThat(index.search("dest", 0, 10).ids()).isEmpty();
+
+        index.index(product(1L, "Desk lamp", LIGHTING, Map.of()));
+        assertThat(index.search("desk", 0, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void equalScoresPageByLowerIdFirst() {
+        for (long id = 5; id >= 1; id--) index.index(product(id, "Bulb", LIGHTING, Map.of()));
+
+        SearchHits second = index.search("bulb", 1, 2);
+
+        assertThat(second.total()).isEqualTo(5);
+        assertThat(second.ids()).containsExactly(3L, 4L);
+        assertThat(index.search("bulb", 3, 2).ids()).isEmpty();
+    }
+
+    @Test
+    void withinOneEditCoversEachEditKind() {
+        assertThat(ProductSearchIndex.withinOneEdit("lamp", "lamp")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("lamp", "lamps")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("lamp", "lap")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("lamp", "lamb")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("lamp", "lmap")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("lamp", "mlap")).isFalse();
+        assertThat(ProductSearchIndex.withinOneEdit("lamp", "la")).isFalse();
+    }
+
+    private static ProductResponse product(Long id, String name, CategoryResponse category, Map<String, String> specification) {
+        return new ProductResponse(id, name, 0L, specification, category, List.of());
+    }
+}
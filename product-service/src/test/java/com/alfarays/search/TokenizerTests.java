@@ -0,0 +1,30 @@
+package com.alfarays.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizerTests {
+
+    @Test
+    void splitsOnAnythingThatIsNotALetterOrDigit() {
+        assertThat(Tokenizer.tokenize("USB-C cable, 2m (braided)")).containsExactly("usb", "c", "cable", "2m", "braided");
+    }
+
+    @Test
+    void foldsAccentsAndCase() {
+        assertThat(Tokenizer.tokenize("Crème BRÛLÉE Naïve")).containsExactly("creme", "brulee", "naive");
+    }
+
+    @Test
+    void keepsNonLatinLetters() {
+        assertThat(Tokenizer.tokenize("مصباح مكتب")).containsExactly("مصباح", "مكتب");
+    }
+
+    @Test
+    void blankTextHasNoTokens() {
+        assertThat(Tokenizer.tokenize(null)).isEmpty();
+        assertThat(Tokenizer.tokenize("  ")).isEmpty();
+        assertThat(Tokenizer.tokenize("--/--")).isEmpty();
+    }
+}
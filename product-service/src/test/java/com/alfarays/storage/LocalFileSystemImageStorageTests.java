@@ -0,0 +1,56 @@
+package com.alfarays.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalFileSystemImageStorageTests {
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    @TempDir
+    Path root;
+
+    @Test
+    void contentKeysAreShardedByHashPrefix() {
+        assertThat(ImageStorage.contentKey(HASH, "jpg")).isEqualTo("9f/86/" + HASH + ".jpg");
+        assertThat(ImageStorage.contentKey(HASH, "")).isEqualTo("9f/86/" + HASH);
+    }
+
+    @Test
+    void putPublishesTempFileUnderItsKey() throws Exception {
+        LocalFileSystemImageStorage storage = new LocalFileSystemImageStorage(root);
+        String key = ImageStorage.contentKey(HASH, "jpg");
+
+        Path temp = storage.newTempFile();
+        Files.writeString(temp, "image bytes");
+        storage.put(key, temp, "image/jpeg");
+
+        assertThat(temp).doesNotExist();
+        assertThat(root.resolve("9f").resolve("86").resolve(HASH + ".jpg")).hasContent("image bytes");
+        assertThat(storage.size(key)).isEqualTo(11);
+        try (InputStream in = storage.open(key, 6, 5)) {
+            assertThat(new String(in.readAllBytes())).isEqualTo("bytes");
+        }
+
+        storage.delete(key);
+        assertThat(storage.exists(key)).isFalse();
+        assertThatThrownBy(() -> storage.size(key)).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void pathsStoredBeforeShardingResolveUnchanged() throws Exception {
+        LocalFileSystemImageStorage storage = new LocalFileSystemImageStorage(root);
+        Path legacy = Files.writeString(root.resolve("0b1c-photo.jpg"), "old");
+
+        assertThat(storage.localFile(legacy.toString())).contains(legacy);
+        assertThat(storage.exists(legacy.toString())).isTrue();
+    }
+}
@@ -0,0 +1,182 @@
+package com.alfarays.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class S3ImageStorageTests {
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final String KEY = ImageStorage.contentKey(HASH, "jpg");
+
+    @TempDir
+    Path temp;
+
+    private final InMemoryS3Client s3 = new InMemoryS3Client();
+
+    @Test
+    void putUploadsUnderThePrefixedKeyAndDropsTheTempFile() throws Exception {
+        S3ImageStorage storage = new S3ImageStorage(s3, "catalog", "images", temp);
+
+        Path source = upload(storage, "image bytes");
+
+        assertThat(Files.exists(source)).isFalse();
+        assertThat(s3.objects).containsOnlyKeys("images/" + KEY);
+        assertThat(s3.contentTypes).containsEntry("images/" + KEY, "image/jpeg");
+        assertThat(storage.exists(KEY)).isTrue();
+        assertThat(storage.size(KEY)).isEqualTo(11);
+        assertThat(storage.localFile(KEY)).isEmpty();
+    }
+
+    @Test
+    void openReadsOnlyTheRequestedRange() throws Exception {
+        S3ImageStorage storage = new S3ImageStorage(s3, "catalog", "", temp);
+        upload(storage, "image bytes");
+
+        try (InputStream in = storage.open(KEY, 6, 5)) {
+            assertThat(new String(in.readAllBytes())).isEqualTo("bytes");
+        }
+        assertThat(s3.ranges).containsExactly("bytes=6-10");
+    }
+
+    @Test
+    void missingObjectsReportNoSuchFile() throws Exception {
+        S3ImageStorage storage = new S3ImageStorage(s3, "catalog", "images/", temp);
+
+        assertThat(storage.exists(KEY)).isFalse();
+        assertThatThrownBy(() -> storage.size(KEY)).isInstanceOf(NoSuchFileException.class);
+        assertThatThrownBy(() -> storage.open(KEY, 0, 1)).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void deleteRemovesTheObject() throws Exception {
+        S3ImageStorage storage = new S3ImageStorage(s3, "catalog", "images", temp);
+        upload(storage, "image bytes");
+
+        storage.delete(KEY);
+
+        assertThat(s3.objects).isEmpty();
+        assertThat(storage.exists(KEY)).isFalse();
+    }
+
+    @Test
+    void failedUploadsSurfaceAsIOExceptionAndStillDropTheTempFile() throws Exception {
+        S3ImageStorage storage = new S3ImageStorage(s3, "catalog", "images", temp);
+        s3.failing = true;
+
+        Path source = storage.newTempFile();
+        Files.writeString(source, "image bytes");
+
+        assertThatThrownBy(() -> storage.put(KEY, source, "image/jpeg"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining(KEY);
+        assertThat(Files.exists(source)).isFalse();
+        assertThatThrownBy(() -> storage.exists(KEY)).isInstanceOf(IOException.class);
+    }
+
+    private static Path upload(S3ImageStorage storage, String content) throws IOException {
+        Path source = storage.newTempFile();
+        Files.writeString(source, content);
+        storage.put(KEY, source, "image/jpeg");
+        return source;
+    }
+
+    /**
+     * Answers the calls S3ImageStorage makes the way S3 does: a HEAD for a missing key fails with a
+     * bare 404, a GET with NoSuchKey
+     */
+    private static final class InMemoryS3Client implements S3Client {
+
+        private final Map<String, byte[]> objects = new HashMap<>();
+        private final Map<String, String> contentTypes = new HashMap<>();
+        private final List<String> ranges = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            failIfAsked();
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                objects.put(request.key(), in.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            contentTypes.put(request.key(), request.contentType());
+            return PutObjectResponse.builder().build();
+        }
+
+        @Override
+        public HeadObjectResponse headObject(HeadObjectRequest request) {
+            failIfAsked();
+            byte[] object = objects.get(request.key());
+            if (object == null) throw S3Exception.builder().statusCode(404).build();
+            return HeadObjectResponse.builder()
+                    .contentLength((long) object.length)
+                    .contentType(contentTypes.get(request.key()))
+                    .build();
+        }
+
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            failIfAsked();
+            byte[] object = objects.get(request.key());
+            if (object == null) throw NoSuchKeyException.builder().statusCode(404).message(request.key()).build();
+
+            ranges.add(request.range());
+            String[] range = request.range().substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(range[0]);
+            int end = Math.min(Integer.parseInt(range[1]), object.length - 1);
+            InputStream content = new ByteArrayInputStream(Arrays.copyOfRange(object, start, end + 1));
+            return new ResponseInputStream<>(GetObjectResponse.builder().build(), AbortableInputStream.create(content));
+        }
+
+        @Override
+        public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+            failIfAsked();
+            objects.remove(request.key());
+            contentTypes.remove(request.key());
+            return DeleteObjectResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private void failIfAsked() {
+            if (failing) throw S3Exception.builder().statusCode(503).message("Slow Down").build();
+        }
+    }
+}